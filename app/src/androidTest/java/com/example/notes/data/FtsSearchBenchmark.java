@@ -0,0 +1,149 @@
+package com.example.notes.data;
+
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.room.Room;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import com.example.notes.data.entity.Note;
+import com.example.notes.data.entity.NoteMatch;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Search latency of the FTS4 index against the LIKE '%q%' scan it replaced, on 10k and 100k
+ * generated notes in an in-memory database. Only runs when asked for:
+ *   ./gradlew connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.benchmark=true
+ * Results are logged under the FtsSearchBenchmark tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FtsSearchBenchmark {
+    private static final String TAG = "FtsSearchBenchmark";
+    private static final String[] QUERIES = {"projet", "réun", "budget trimestre", "zzz"};
+    private static final String[] WORDS = {
+            "projet", "réunion", "budget", "trimestre", "client", "livraison", "équipe", "planning",
+            "meeting", "roadmap", "release", "design", "courses", "maison", "vacances", "idée",
+            "rappel", "médecin", "facture", "contrat", "rapport", "présentation", "demain", "semaine"};
+    private static final int WARMUP = 3;
+    private static final int RUNS = 15;
+
+    private AppDatabase database;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("benchmark=true not set",
+                "true".equals(InstrumentationRegistry.getArguments().getString("benchmark")));
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+    }
+
+    @After
+    public void tearDown() {
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @Test
+    public void search10k() {
+        run(10_000);
+    }
+
+    @Test
+    public void search100k() {
+        run(100_000);
+    }
+
+    private void run(int noteCount) {
+        insertNotes(noteCount);
+        for (String query : QUERIES) {
+            String match = NoteRepository.buildMatchQuery(query);
+            long fts = median(() -> rankedFtsSearch(match));
+            long like = median(() -> likeSearch(query));
+            Log.i(TAG, noteCount + " notes, \"" + query + "\": fts " + fts / 1000 + " µs ("
+                    + rankedFtsSearch(match) + " hits), like " + like / 1000 + " µs ("
+                    + likeSearch(query) + " hits)");
+        }
+        assertTrue(rankedFtsSearch(NoteRepository.buildMatchQuery("projet")) > 0);
+    }
+
+    // What NoteRepository.searchSync does: the MATCH query, then ranking by BM25
+    private int rankedFtsSearch(String match) {
+        List<NoteMatch> matches = database.noteDao().searchNotes(match);
+        Collections.sort(matches, (a, b) -> Double.compare(b.getScore(), a.getScore()));
+        return matches.size();
+    }
+
+    // The query NoteDao.searchNotes ran before the full-text index
+    private int likeSearch(String query) {
+        SimpleSQLiteQuery like = new SimpleSQLiteQuery(
+                "SELECT * FROM notes WHERE title LIKE '%' || ? || '%' OR content LIKE '%' || ? || '%'",
+                new Object[] {query, query});
+        int count = 0;
+        try (Cursor cursor = database.query(like)) {
+            while (cursor.moveToNext()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private interface Search {
+        int run();
+    }
+
+    private static long median(Search search) {
+        for (int i = 0; i < WARMUP; i++) {
+            search.run();
+        }
+        long[] nanos = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            search.run();
+            nanos[i] = SystemClock.elapsedRealtimeNanos() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[RUNS / 2];
+    }
+
+    private void insertNotes(int count) {
+        Random random = new Random(42);
+        List<Note> batch = new ArrayList<>();
+        database.runInTransaction(() -> {
+            for (int i = 1; i <= count; i++) {
+                Note note = new Note(sentence(random, 4), sentence(random, 60), null, null);
+                note.setId(i);
+                batch.add(note);
+                if (batch.size() == 1000) {
+                    database.noteDao().upsertAll(batch);
+                    batch.clear();
+                }
+            }
+            database.noteDao().upsertAll(batch);
+        });
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(i % 12 == 0 ? ". " : " ");
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+}
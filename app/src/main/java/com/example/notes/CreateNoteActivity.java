@@ -6,10 +6,13 @@ import android.content.ClipData;
 import android.content.ClipboardManager;
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.speech.RecognizerIntent;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
@@ -24,32 +27,19 @@ import androidx.core.content.ContextCompat;
 import androidx.appcompat.widget.Toolbar;
 
 import com.example.notes.api.RetrofitClient;
+import com.example.notes.data.NoteRepository;
 import com.example.notes.models.Note;
+import com.example.notes.summary.SummarizationService;
+import com.example.notes.sync.SyncWorker;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Date;
 import java.util.Locale;
-import java.util.concurrent.TimeUnit;
-
-import okhttp3.MediaType;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.RequestBody;
-
-import org.json.JSONObject;
-import org.json.JSONArray;
-import java.io.IOException;
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
 
 public class CreateNoteActivity extends AppCompatActivity {
     private static final String TAG = "CreateNoteActivity";
     private static final int PERMISSION_REQUEST_RECORD_AUDIO = 1;
     private static final int SPEECH_REQUEST_CODE = 0;
-    private static final String COHERE_API_URL = "https://api.cohere.ai/v1/summarize";
-    private static final String COHERE_API_KEY = "tZg7bj2rRrUHSUL6uWepa0klO7dKugPzKG7VKlCq"; // clé API gratuite
-    private static final String CACHE_PREFS_NAME = "NoteSummaries";
+    private static final long SUMMARY_PREFETCH_DELAY_MS = 1000;
     
     private EditText titleEditText;
     private EditText contentEditText;
@@ -59,9 +49,12 @@ public class CreateNoteActivity extends AppCompatActivity {
     private boolean isProcessingSpeech = false;
     private Note existingNote = null;
     private String noteId;
-    private OkHttpClient client;
     private AlertDialog progressDialog;
-    private SharedPreferences prefs;
+    private NoteRepository repository;
+    private SummarizationService summarizationService;
+    private SummarizationService.Job summaryJob;
+    private Runnable summaryPrefetch;
+    private final Handler summaryHandler = new Handler(Looper.getMainLooper());
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -75,9 +68,11 @@ public class CreateNoteActivity extends AppCompatActivity {
             
             // Vérifier la connexion réseau
             if (!RetrofitClient.isNetworkAvailable(this)) {
-                Toast.makeText(this, "Pas de connexion Internet. Les modifications ne seront pas sauvegardées.", Toast.LENGTH_LONG).show();
+                Toast.makeText(this, "Pas de connexion Internet. Les modifications seront synchronisées plus tard.", Toast.LENGTH_LONG).show();
             }
 
+        repository = NoteRepository.getInstance(this);
+        summarizationService = SummarizationService.getInstance(this);
         setupToolbar();
         initializeViews();
         setupClickListeners();
@@ -86,16 +81,6 @@ public class CreateNoteActivity extends AppCompatActivity {
             if (noteId != null && !noteId.isEmpty()) {
             loadNote(noteId);
         }
-
-        // Initialize SharedPreferences for caching
-        prefs = getSharedPreferences(CACHE_PREFS_NAME, MODE_PRIVATE);
-
-        // Initialize OkHttpClient with longer timeouts
-        client = new OkHttpClient.Builder()
-            .connectTimeout(30, TimeUnit.SECONDS)
-            .readTimeout(30, TimeUnit.SECONDS)
-            .writeTimeout(30, TimeUnit.SECONDS)
-            .build();
         } catch (Exception e) {
             Log.e(TAG, "onCreate: Error initializing activity", e);
             Toast.makeText(this, "Erreur lors de l'initialisation de l'application: " + e.getMessage(), Toast.LENGTH_LONG).show();
@@ -134,7 +119,7 @@ public class CreateNoteActivity extends AppCompatActivity {
 
         showProgressDialog("Génération du résumé...");
 
-        generateSummaryAsync(content, new SummaryCallback() {
+        generateSummaryAsync(content, new SummarizationService.Callback() {
             @Override
             public void onSummaryGenerated(String summary) {
                 runOnUiThread(() -> {
@@ -153,139 +138,42 @@ public class CreateNoteActivity extends AppCompatActivity {
         });
     }
 
-    private String detectLanguage(String text) {
-        // Détection améliorée basée sur les caractères et mots communs
-        if (text == null || text.isEmpty()) return "fr";
-        
-        // Comptage des caractères et mots spécifiques au français
-        int frenchScore = 0;
-        int englishScore = 0;
-        
-        // Caractères spécifiques au français
-        String frenchChars = "éèêëàâçîïôöûüù";
-        // Mots communs en français
-        String[] frenchWords = {"le", "la", "les", "un", "une", "des", "et", "est", "dans", "pour", "avec", "sans", "sur", "sous", "par", "que", "qui", "quoi", "où", "quand", "comment", "pourquoi"};
-        // Mots communs en anglais
-        String[] englishWords = {"the", "a", "an", "and", "is", "in", "for", "with", "without", "on", "under", "by", "that", "which", "what", "where", "when", "how", "why"};
-        
-        // Vérifier les caractères spéciaux
-        for (char c : text.toLowerCase().toCharArray()) {
-            if (frenchChars.indexOf(c) != -1) {
-                frenchScore += 2; // Donner plus de poids aux caractères spéciaux
-            }
-        }
-        
-        // Vérifier les mots communs
-        String[] words = text.toLowerCase().split("\\s+");
-        for (String word : words) {
-            word = word.replaceAll("[^a-zéèêëàâçîïôöûüù]", "");
-            if (word.length() > 1) { // Ignorer les mots trop courts
-                for (String frenchWord : frenchWords) {
-                    if (word.equals(frenchWord)) {
-                        frenchScore++;
-                        break;
-                    }
-                }
-                for (String englishWord : englishWords) {
-                    if (word.equals(englishWord)) {
-                        englishScore++;
-                        break;
-                    }
-                }
-            }
-        }
-        
-        // Ajouter un biais vers le français si le texte contient des caractères spéciaux
-        if (frenchScore > 0) {
-            frenchScore += 5;
-        }
-        
-        return frenchScore >= englishScore ? "fr" : "en";
+    private void generateSummaryAsync(String content, SummarizationService.Callback callback) {
+        // A summary requested explicitly supersedes the background one
+        cancelSummaryJobs();
+        summaryJob = summarizationService.summarize(content, callback);
     }
 
-    private void generateSummaryAsync(String content, SummaryCallback callback) {
-        if (content == null || content.trim().isEmpty()) {
-            callback.onSummaryGenerated("");
-            return;
-        }
-
-        String trimmedContent = content.trim();
-        String detectedLanguage = detectLanguage(trimmedContent);
-        String cacheKey = trimmedContent.hashCode() + "_" + detectedLanguage;
-
-        // Check cache
-        String cachedSummary = prefs.getString(cacheKey, null);
-        if (cachedSummary != null) {
-            callback.onSummaryGenerated(cachedSummary);
+    // Summarize in the background once the user stops typing so that saving usually hits the cache
+    private void scheduleSummaryPrefetch() {
+        cancelSummaryJobs();
+        String content = contentEditText.getText().toString().trim();
+        if (content.isEmpty()) {
             return;
         }
-
-        // For all texts, use local summary only (API disabled due to unavailability)
-        String summary = generateSimpleSummary(trimmedContent);
-        prefs.edit().putString(cacheKey, summary).apply();
-        callback.onSummaryGenerated(summary);
-    }
-
-    private String generateSimpleSummary(String content) {
-        if (content == null || content.isEmpty()) {
-            return "";
-        }
-
-        // Pour les textes très courts
-        if (content.length() <= 50) {
-            return content;
-        }
-
-        // Diviser en phrases
-        String[] sentences = content.split("[.!?]+");
-        if (sentences.length <= 1) {
-            // Pour une seule phrase, prendre le début et la fin
-            String[] words = content.split("\\s+");
-            if (words.length <= 10) {
-                return content;
+        summaryPrefetch = () -> summaryJob = summarizationService.summarize(content, new SummarizationService.Callback() {
+            @Override
+            public void onSummaryGenerated(String summary) {
+                Log.d(TAG, "Summary prefetched");
             }
-            return String.join(" ", 
-                String.join(" ", Arrays.copyOfRange(words, 0, 3)),
-                "...",
-                String.join(" ", Arrays.copyOfRange(words, words.length - 3, words.length))
-            );
-        }
 
-        // Pour plusieurs phrases
-        StringBuilder summary = new StringBuilder();
-        
-        // Première phrase
-        summary.append(sentences[0].trim());
-        
-        // Si plus de 2 phrases, ajouter une phrase du milieu
-        if (sentences.length > 2) {
-            int midIndex = sentences.length / 2;
-            String midSentence = sentences[midIndex].trim();
-            if (midSentence.length() > 20) {
-                summary.append(". ").append(midSentence);
-            }
-        }
-        
-        // Dernière phrase si différente
-        if (sentences.length > 1) {
-            String lastSentence = sentences[sentences.length - 1].trim();
-            if (!lastSentence.equals(sentences[0].trim())) {
-                summary.append(". ").append(lastSentence);
+            @Override
+            public void onError(String errorMessage) {
+                Log.d(TAG, "Summary prefetch failed: " + errorMessage);
             }
-        }
-
-        return summary.toString().trim();
+        });
+        summaryHandler.postDelayed(summaryPrefetch, SUMMARY_PREFETCH_DELAY_MS);
     }
 
-    private String cleanSummary(String summary) {
-        // Supprimer les préfixes communs
-        summary = summary.replaceAll("(?i)^(voici|here is|here's|this is|aquí está|hier ist|ecco|resumen|zusammenfassung).*?:\\s*", "");
-        summary = summary.replaceAll("(?i)^(le texte|the text|el texto|der text).*?\\s", "");
-        
-        // Supprimer les espaces multiples
-        summary = summary.replaceAll("\\s+", " ");
-        
-        return summary.trim();
+    private void cancelSummaryJobs() {
+        if (summaryPrefetch != null) {
+            summaryHandler.removeCallbacks(summaryPrefetch);
+            summaryPrefetch = null;
+        }
+        if (summaryJob != null) {
+            summaryJob.cancel();
+            summaryJob = null;
+        }
     }
 
     private void showProgressDialog(String message) {
@@ -331,29 +219,16 @@ public class CreateNoteActivity extends AppCompatActivity {
 
     private void deleteNote() {
         if (existingNote != null) {
-            RetrofitClient.getInstance().getApiService().deleteNote(String.valueOf(existingNote.getId()))
-                .enqueue(new Callback<Void>() {
-                    @Override
-                    public void onResponse(Call<Void> call, Response<Void> response) {
-                        if (response.isSuccessful()) {
-                            Toast.makeText(CreateNoteActivity.this, 
-                                "Note supprimée", 
-                                Toast.LENGTH_SHORT).show();
-                            finish();
-                        } else {
-                            Toast.makeText(CreateNoteActivity.this, 
-                                "Erreur de suppression: " + response.code(), 
-                                Toast.LENGTH_LONG).show();
-                        }
-                    }
-
-                    @Override
-                    public void onFailure(Call<Void> call, Throwable t) {
-                        Toast.makeText(CreateNoteActivity.this, 
-                            "Erreur de connexion: " + t.getMessage(), 
-                            Toast.LENGTH_LONG).show();
-                    }
-                });
+            repository.deleteNote(existingNote.getId(), () -> {
+                SyncWorker.requestSync(this);
+                if (isFinishing() || isDestroyed()) {
+                    return;
+                }
+                Toast.makeText(CreateNoteActivity.this,
+                    "Note supprimée",
+                    Toast.LENGTH_SHORT).show();
+                finish();
+            });
         }
     }
 
@@ -373,252 +248,54 @@ public class CreateNoteActivity extends AppCompatActivity {
 
         showProgressDialog("Génération du résumé...");
 
-        generateSummaryAsync(content, new SummaryCallback() {
+        // The prefetch is superseded; the save-time summary itself outlives the activity
+        cancelSummaryJobs();
+        summarizationService.summarizeForSave(content, new SummarizationService.Callback() {
             @Override
             public void onSummaryGenerated(String summary) {
-                runOnUiThread(() -> {
-                    hideProgressDialog();
-                    Date currentDate = new Date();
-
-                    Note note;
-                    if (existingNote != null) {
-                        // Update existing note
-                        existingNote.setTitle(title);
-                        existingNote.setContent(content);
-                        existingNote.setSummary(summary);
-                        existingNote.setUpdatedAt(currentDate);
-                        note = existingNote;
-                    } else {
-                        // Create new note
-                        note = new Note(title, content, summary);
-                    }
-
-                    // Show progress dialog for saving
-                    progressDialog = new AlertDialog.Builder(CreateNoteActivity.this)
-                        .setTitle("Enregistrement")
-                        .setMessage("Veuillez patienter...")
-                        .setCancelable(false)
-                        .create();
-                    progressDialog.show();
-
-                    // Save to API
-                    if (existingNote != null) {
-                        updateNote(note);
-                    } else {
-                        createNote(note);
-                    }
-                });
+                hideProgressDialog();
+                persistNote(title, content, summary);
             }
 
             @Override
             public void onError(String errorMessage) {
-                runOnUiThread(() -> {
-                    hideProgressDialog();
-                    Toast.makeText(CreateNoteActivity.this, errorMessage, Toast.LENGTH_LONG).show();
-
-                    // Fallback to simple summary
-                    String fallbackSummary = generateSimpleSummary(content);
-                    Date currentDate = new Date();
-
-                    Note note;
-                    if (existingNote != null) {
-                        existingNote.setTitle(title);
-                        existingNote.setContent(content);
-                        existingNote.setSummary(fallbackSummary);
-                        existingNote.setUpdatedAt(currentDate);
-                        note = existingNote;
-                    } else {
-                        note = new Note(title, content, fallbackSummary);
-                    }
-
-                    // Show progress dialog for saving
-                    progressDialog = new AlertDialog.Builder(CreateNoteActivity.this)
-                        .setTitle("Enregistrement")
-                        .setMessage("Veuillez patienter...")
-                        .setCancelable(false)
-                        .create();
-                    progressDialog.show();
-
-                    if (existingNote != null) {
-                        updateNote(note);
-                    } else {
-                        createNote(note);
-                    }
-                });
+                hideProgressDialog();
+                Toast.makeText(CreateNoteActivity.this, errorMessage, Toast.LENGTH_LONG).show();
+                // Save without a summary rather than lose the note
+                persistNote(title, content, "");
             }
         });
     }
 
-    private void createNote(Note note) {
-        if (!RetrofitClient.isNetworkAvailable(this)) {
-            Toast.makeText(this, "Pas de connexion Internet. Impossible de créer la note.", Toast.LENGTH_LONG).show();
-            return;
-        }
-
-        try {
-            progressDialog.show();
-        RetrofitClient.getInstance().getApiService().createNote(note).enqueue(new Callback<Note>() {
-            @Override
-            public void onResponse(Call<Note> call, Response<Note> response) {
-                    try {
-                        if (progressDialog != null && progressDialog.isShowing()) {
-                progressDialog.dismiss();
-                        }
-
-                        if (isFinishing() || isDestroyed()) {
-                            return;
-                        }
-
-                if (response.isSuccessful()) {
-                    Toast.makeText(CreateNoteActivity.this, 
-                        "Note enregistrée", 
-                        Toast.LENGTH_SHORT).show();
-                    finish();
-                } else {
-                            String errorMessage = "Erreur d'enregistrement";
-                            try {
-                                if (response.errorBody() != null) {
-                                    errorMessage += ": " + response.errorBody().string();
-                                }
-                            } catch (IOException e) {
-                                Log.e(TAG, "Error reading error body", e);
-                            }
-                            
-                    Log.e(TAG, "Error creating note: " + response.code());
-                            Toast.makeText(CreateNoteActivity.this, errorMessage, Toast.LENGTH_LONG).show();
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "onResponse: Error handling response", e);
-                        if (!isFinishing() && !isDestroyed()) {
-                            Toast.makeText(CreateNoteActivity.this, "Erreur lors du traitement de la réponse", Toast.LENGTH_SHORT).show();
-                        }
-                }
-            }
-
-            @Override
-            public void onFailure(Call<Note> call, Throwable t) {
-                    try {
-                        if (progressDialog != null && progressDialog.isShowing()) {
-                            progressDialog.dismiss();
-                        }
-
-                        if (isFinishing() || isDestroyed()) {
-                            return;
-                        }
-
-                        if (!call.isCanceled()) {
-                            Log.e(TAG, "Error creating note: " + t.getMessage());
-                            String errorMessage;
-                            if (t instanceof IOException) {
-                                errorMessage = "Erreur de connexion. Vérifiez votre connexion Internet.";
-                            } else if (t.getMessage() != null && t.getMessage().contains("failed to connect")) {
-                                errorMessage = "Impossible de se connecter au serveur. Vérifiez que le serveur est en cours d'exécution.";
-                            } else {
-                                errorMessage = "Erreur inattendue: " + t.getMessage();
-                            }
-                            Toast.makeText(CreateNoteActivity.this, errorMessage, Toast.LENGTH_LONG).show();
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "onFailure: Error handling failure", e);
-                    }
-                }
-            });
-        } catch (Exception e) {
-            Log.e(TAG, "createNote: Error creating note", e);
-            if (progressDialog != null && progressDialog.isShowing()) {
-                progressDialog.dismiss();
-            }
-            if (!isFinishing() && !isDestroyed()) {
-                Toast.makeText(this, "Erreur lors de la création de la note", Toast.LENGTH_SHORT).show();
-            }
+    private void persistNote(String title, String content, String summary) {
+        Note note;
+        if (existingNote != null) {
+            // Update existing note
+            existingNote.setTitle(title);
+            existingNote.setContent(content);
+            existingNote.setSummary(summary);
+            existingNote.setUpdatedAt(new Date());
+            note = existingNote;
+        } else {
+            // Create new note
+            note = new Note(title, content, summary);
         }
+        persistNote(note);
     }
 
-    private void updateNote(Note note) {
-        if (!RetrofitClient.isNetworkAvailable(this)) {
-            Toast.makeText(this, "Pas de connexion Internet. Impossible de mettre à jour la note.", Toast.LENGTH_LONG).show();
-            return;
-        }
-
-        try {
-            Log.d(TAG, "Updating note with ID: " + note.getId());
-            progressDialog.show();
-            
-        RetrofitClient.getInstance().getApiService().updateNote(String.valueOf(note.getId()), note).enqueue(new Callback<Note>() {
-            @Override
-            public void onResponse(Call<Note> call, Response<Note> response) {
-                    try {
-                        if (progressDialog != null && progressDialog.isShowing()) {
-                progressDialog.dismiss();
-                        }
-
-                        if (isFinishing() || isDestroyed()) {
-                            return;
-                        }
-
-                if (response.isSuccessful()) {
-                    Toast.makeText(CreateNoteActivity.this, 
-                        "Note mise à jour", 
-                        Toast.LENGTH_SHORT).show();
-                    finish();
-                } else {
-                            String errorMessage = "Erreur de mise à jour";
-                            try {
-                                if (response.errorBody() != null) {
-                                    errorMessage += ": " + response.errorBody().string();
-                                }
-                            } catch (IOException e) {
-                                Log.e(TAG, "Error reading error body", e);
-                            }
-                            
-                    Log.e(TAG, "Error updating note: " + response.code());
-                            Toast.makeText(CreateNoteActivity.this, errorMessage, Toast.LENGTH_LONG).show();
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "onResponse: Error handling response", e);
-                        if (!isFinishing() && !isDestroyed()) {
-                            Toast.makeText(CreateNoteActivity.this, "Erreur lors du traitement de la réponse", Toast.LENGTH_SHORT).show();
-                        }
-                }
-            }
-
-            @Override
-            public void onFailure(Call<Note> call, Throwable t) {
-                    try {
-                        if (progressDialog != null && progressDialog.isShowing()) {
-                            progressDialog.dismiss();
-                        }
-
-                        if (isFinishing() || isDestroyed()) {
-                            return;
-                        }
-
-                        if (!call.isCanceled()) {
-                            Log.e(TAG, "Error updating note: " + t.getMessage());
-                            String errorMessage;
-                            if (t instanceof IOException) {
-                                errorMessage = "Erreur de connexion. Vérifiez votre connexion Internet.";
-                            } else if (t.getMessage() != null && t.getMessage().contains("failed to connect")) {
-                                errorMessage = "Impossible de se connecter au serveur. Vérifiez que le serveur est en cours d'exécution.";
-                            } else {
-                                errorMessage = "Erreur inattendue: " + t.getMessage();
-                            }
-                            Toast.makeText(CreateNoteActivity.this, errorMessage, Toast.LENGTH_LONG).show();
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "onFailure: Error handling failure", e);
-                    }
-                }
-            });
-        } catch (Exception e) {
-            Log.e(TAG, "updateNote: Error updating note", e);
-            if (progressDialog != null && progressDialog.isShowing()) {
-                progressDialog.dismiss();
-            }
-            if (!isFinishing() && !isDestroyed()) {
-                Toast.makeText(this, "Erreur lors de la mise à jour de la note", Toast.LENGTH_SHORT).show();
+    // Saved locally right away, SyncWorker sends it to the server when the network allows
+    private void persistNote(Note note) {
+        boolean isNew = note.getId() == 0;
+        repository.saveNote(note, () -> {
+            SyncWorker.requestSync(this);
+            if (isFinishing() || isDestroyed()) {
+                return;
             }
-        }
+            Toast.makeText(CreateNoteActivity.this,
+                isNew ? "Note enregistrée" : "Note mise à jour",
+                Toast.LENGTH_SHORT).show();
+            finish();
+        });
     }
 
     // Remove the old generateSummary method since we now use async summary generation
@@ -699,6 +376,24 @@ public class CreateNoteActivity extends AppCompatActivity {
             if (deleteButton != null) {
                 deleteButton.setOnClickListener(v -> showDeleteConfirmationDialog());
             }
+
+            if (contentEditText != null) {
+                contentEditText.addTextChangedListener(new TextWatcher() {
+                    @Override
+                    public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+                    }
+
+                    @Override
+                    public void onTextChanged(CharSequence s, int start, int before, int count) {
+                    }
+
+                    @Override
+                    public void afterTextChanged(Editable s) {
+                        // The user is still typing: drop the stale summary and start over later
+                        scheduleSummaryPrefetch();
+                    }
+                });
+            }
         } catch (Exception e) {
             Log.e(TAG, "Error setting up click listeners", e);
         }
@@ -840,27 +535,20 @@ public class CreateNoteActivity extends AppCompatActivity {
                 return;
             }
 
-        RetrofitClient.getInstance().getApiService().getNote(noteId).enqueue(new Callback<Note>() {
-            @Override
-            public void onResponse(Call<Note> call, Response<Note> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    existingNote = response.body();
-                    titleEditText.setText(existingNote.getTitle());
-                    contentEditText.setText(existingNote.getContent());
-                    if (getSupportActionBar() != null) {
-                        getSupportActionBar().setTitle("Modifier la note");
-                    }
-                } else {
-                    Log.e(TAG, "Error loading note: " + response.code());
-                    Toast.makeText(CreateNoteActivity.this, "Erreur lors du chargement de la note", Toast.LENGTH_SHORT).show();
-                    finish();
-                }
+        repository.loadNote(Long.parseLong(noteId), note -> {
+            if (isFinishing() || isDestroyed()) {
+                return;
             }
-
-            @Override
-            public void onFailure(Call<Note> call, Throwable t) {
-                Log.e(TAG, "Error loading note: " + t.getMessage());
-                Toast.makeText(CreateNoteActivity.this, "Erreur de connexion", Toast.LENGTH_SHORT).show();
+            if (note != null) {
+                existingNote = note;
+                titleEditText.setText(existingNote.getTitle());
+                contentEditText.setText(existingNote.getContent());
+                if (getSupportActionBar() != null) {
+                    getSupportActionBar().setTitle("Modifier la note");
+                }
+            } else {
+                Log.e(TAG, "Error loading note: " + noteId + " not found");
+                Toast.makeText(CreateNoteActivity.this, "Erreur lors du chargement de la note", Toast.LENGTH_SHORT).show();
                 finish();
             }
         });
@@ -884,6 +572,8 @@ public class CreateNoteActivity extends AppCompatActivity {
     protected void onDestroy() {
         try {
             super.onDestroy();
+            // Only the prefetch and the summary dialog; a note being saved still gets its summary
+            cancelSummaryJobs();
             if (progressDialog != null && progressDialog.isShowing()) {
                 progressDialog.dismiss();
             }
@@ -891,9 +581,4 @@ public class CreateNoteActivity extends AppCompatActivity {
             Log.e(TAG, "onDestroy: Error destroying activity", e);
         }
     }
-
-    private interface SummaryCallback {
-        void onSummaryGenerated(String summary);
-        void onError(String errorMessage);
-    }
 }
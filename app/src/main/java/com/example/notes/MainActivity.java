@@ -9,19 +9,19 @@ import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.SearchView;
 import androidx.appcompat.widget.Toolbar;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
+import androidx.work.WorkInfo;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.example.notes.adapter.NotesAdapter;
 import com.example.notes.api.RetrofitClient;
+import com.example.notes.data.NoteRepository;
 import com.example.notes.models.Note;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import com.example.notes.search.NoteSearchEngine;
+import com.example.notes.sync.SyncWorker;
 
 public class MainActivity extends AppCompatActivity implements NotesAdapter.OnNoteClickListener {
     private static final String TAG = "MainActivity";
@@ -29,12 +29,13 @@ public class MainActivity extends AppCompatActivity implements NotesAdapter.OnNo
     private FloatingActionButton fabAddNote;
     private SwipeRefreshLayout swipeRefreshLayout;
     private NotesAdapter adapter;
-    private List<Note> notesList;
-    private List<Note> filteredNotesList;
+    private PagingData<Note> pagedNotes;
+    private boolean isShowingSearchResults = false;
     private boolean isActivityActive = false;
     private SearchView searchView;
     private Toolbar toolbar;
-    private Call<List<Note>> currentCall;
+    private NoteRepository repository;
+    private NoteSearchEngine searchEngine;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -44,14 +45,19 @@ public class MainActivity extends AppCompatActivity implements NotesAdapter.OnNo
             Log.d(TAG, "onCreate: Activity starting");
 
             if (!RetrofitClient.isNetworkAvailable(this)) {
-                Toast.makeText(this, "Pas de connexion Internet. L'application fonctionnera en mode limité.", Toast.LENGTH_LONG).show();
+                Toast.makeText(this, "Pas de connexion Internet. Affichage des notes enregistrées sur l'appareil.", Toast.LENGTH_LONG).show();
             }
 
+            repository = NoteRepository.getInstance(this);
+            setupSearchEngine();
+
             setupToolbar();
             initializeViews();
             setupRecyclerView();
             setupClickListeners();
             setupSwipeRefresh();
+            observeNotes();
+            observeSync();
         } catch (Exception e) {
             Log.e(TAG, "onCreate: Error initializing activity", e);
             Toast.makeText(this, "Erreur lors de l'initialisation de l'application", Toast.LENGTH_LONG).show();
@@ -78,6 +84,10 @@ public class MainActivity extends AppCompatActivity implements NotesAdapter.OnNo
     public boolean onCreateOptionsMenu(Menu menu) {
         try {
             getMenuInflater().inflate(R.menu.menu_main, menu);
+            MenuItem metricsItem = menu.findItem(R.id.action_metrics);
+            if (metricsItem != null) {
+                metricsItem.setVisible(BuildConfig.DEBUG);
+            }
             MenuItem searchItem = menu.findItem(R.id.action_search);
             if (searchItem != null) {
                 searchView = (SearchView) searchItem.getActionView();
@@ -92,6 +102,15 @@ public class MainActivity extends AppCompatActivity implements NotesAdapter.OnNo
         return true;
     }
 
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.action_metrics) {
+            startActivity(new Intent(this, MetricsActivity.class));
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
     private void setupSearchView() {
         if (searchView == null) return;
 
@@ -111,9 +130,7 @@ public class MainActivity extends AppCompatActivity implements NotesAdapter.OnNo
             });
 
             searchView.setOnCloseListener(() -> {
-                if (adapter != null) {
-                    adapter.setNotes(notesList);
-                }
+                showPagedNotes();
                 return false;
             });
         } catch (Exception e) {
@@ -121,31 +138,29 @@ public class MainActivity extends AppCompatActivity implements NotesAdapter.OnNo
         }
     }
 
-    private void filterNotes(String query) {
-        try {
-            if (adapter == null || notesList == null) return;
-
-            if (query == null || query.isEmpty()) {
-                adapter.setNotes(notesList);
+    private void setupSearchEngine() {
+        searchEngine = new NoteSearchEngine(repository, (query, results) -> {
+            // Ignore results for a query the user has already changed
+            if (adapter == null || searchView == null
+                    || !query.equals(searchView.getQuery().toString())) {
                 return;
             }
+            isShowingSearchResults = true;
+            adapter.submitData(getLifecycle(), PagingData.from(results));
+        });
+    }
 
-            filteredNotesList = new ArrayList<>();
-            String lowerCaseQuery = query.toLowerCase();
-
-            for (Note note : notesList) {
-                String title = note.getTitle() != null ? note.getTitle().toLowerCase() : "";
-                String content = note.getContent() != null ? note.getContent().toLowerCase() : "";
-                String summary = note.getSummary() != null ? note.getSummary().toLowerCase() : "";
+    private void filterNotes(String query) {
+        try {
+            if (adapter == null) return;
 
-                if (title.contains(lowerCaseQuery) ||
-                    content.contains(lowerCaseQuery) ||
-                    summary.contains(lowerCaseQuery)) {
-                    filteredNotesList.add(note);
-                }
+            if (query == null || query.trim().isEmpty()) {
+                searchEngine.setQuery(null);
+                showPagedNotes();
+                return;
             }
 
-            adapter.setNotes(filteredNotesList);
+            searchEngine.setQuery(query);
         } catch (Exception e) {
             Log.e(TAG, "filterNotes: Error filtering notes", e);
         }
@@ -166,8 +181,6 @@ public class MainActivity extends AppCompatActivity implements NotesAdapter.OnNo
             if (notesRecyclerView == null) return;
 
             notesRecyclerView.setLayoutManager(new LinearLayoutManager(this));
-            notesList = new ArrayList<>();
-            filteredNotesList = new ArrayList<>();
             adapter = new NotesAdapter(this);
             notesRecyclerView.setAdapter(adapter);
         } catch (Exception e) {
@@ -198,7 +211,7 @@ public class MainActivity extends AppCompatActivity implements NotesAdapter.OnNo
         try {
             if (swipeRefreshLayout == null) return;
 
-            swipeRefreshLayout.setOnRefreshListener(this::loadNotes);
+            swipeRefreshLayout.setOnRefreshListener(() -> refreshNotes(true));
             swipeRefreshLayout.setColorSchemeResources(
                 android.R.color.holo_blue_bright,
                 android.R.color.holo_green_light,
@@ -210,10 +223,49 @@ public class MainActivity extends AppCompatActivity implements NotesAdapter.OnNo
         }
     }
     
-    private void loadNotes() {
+    private void observeNotes() {
+        PagingLiveData.cachedIn(repository.getPagedNotes(), getLifecycle()).observe(this, notes -> {
+            // A new generation means the local notes changed
+            pagedNotes = notes;
+            if (isShowingSearchResults && searchView != null) {
+                searchEngine.invalidate();
+                filterNotes(searchView.getQuery().toString());
+            } else if (adapter != null) {
+                adapter.submitData(getLifecycle(), pagedNotes);
+            }
+        });
+    }
+
+    // Only drives the swipe indicator, the notes themselves come from Room
+    private void observeSync() {
+        SyncWorker.observeSync(this).observe(this, workInfos -> {
+            if (workInfos == null || workInfos.isEmpty()
+                    || swipeRefreshLayout == null || !swipeRefreshLayout.isRefreshing()) {
+                return;
+            }
+            WorkInfo workInfo = SyncWorker.currentSync(workInfos);
+            boolean waitingForRetry = workInfo.getState() == WorkInfo.State.ENQUEUED
+                    && workInfo.getRunAttemptCount() > 0;
+            if (workInfo.getState().isFinished() || waitingForRetry) {
+                swipeRefreshLayout.setRefreshing(false);
+                if (workInfo.getState() != WorkInfo.State.SUCCEEDED && isActivityActive) {
+                    Toast.makeText(this, "Synchronisation impossible pour le moment, nouvel essai automatique", Toast.LENGTH_LONG).show();
+                }
+            }
+        });
+    }
+
+    private void showPagedNotes() {
+        isShowingSearchResults = false;
+        if (adapter != null && pagedNotes != null) {
+            adapter.submitData(getLifecycle(), pagedNotes);
+        }
+    }
+
+    private void refreshNotes(boolean userInitiated) {
         try {
             if (!isActivityActive || isFinishing() || isDestroyed()) {
-                Log.d(TAG, "loadNotes: Activity not active, skipping load");
+                Log.d(TAG, "refreshNotes: Activity not active, skipping refresh");
                 return;
             }
 
@@ -221,96 +273,17 @@ public class MainActivity extends AppCompatActivity implements NotesAdapter.OnNo
                 if (swipeRefreshLayout != null) {
                     swipeRefreshLayout.setRefreshing(false);
                 }
-                Toast.makeText(this, "Pas de connexion Internet", Toast.LENGTH_SHORT).show();
-                return;
-            }
-
-            if (currentCall != null && !currentCall.isCanceled()) {
-                currentCall.cancel();
-            }
-
-            Log.d(TAG, "loadNotes: Starting to load notes");
-            currentCall = RetrofitClient.getInstance().getApiService().getNotes();
-            currentCall.enqueue(new Callback<List<Note>>() {
-                @Override
-                public void onResponse(Call<List<Note>> call, Response<List<Note>> response) {
-                    try {
-                        if (swipeRefreshLayout != null) {
-                            swipeRefreshLayout.setRefreshing(false);
-                        }
-                        
-                        if (!isActivityActive || isFinishing() || isDestroyed()) {
-                            Log.d(TAG, "onResponse: Activity not active, skipping update");
-                            return;
-                        }
-
-                        if (response.isSuccessful() && response.body() != null) {
-                            Log.d(TAG, "onResponse: Successfully loaded " + response.body().size() + " notes");
-                            notesList.clear();
-                            notesList.addAll(response.body());
-                            
-                            if (searchView != null && !searchView.getQuery().toString().isEmpty()) {
-                                filterNotes(searchView.getQuery().toString());
-                            } else if (adapter != null) {
-                                adapter.setNotes(notesList);
-                            }
-                        } else {
-                            String errorMessage = "Erreur lors du chargement des notes";
-                            try {
-                                if (response.errorBody() != null) {
-                                    errorMessage += ": " + response.errorBody().string();
-                                }
-                            } catch (IOException e) {
-                                Log.e(TAG, "Error reading error body", e);
-                            }
-                            
-                            Log.e(TAG, "onResponse: " + errorMessage + " Code: " + response.code());
-                            if (!isFinishing() && !isDestroyed()) {
-                                Toast.makeText(MainActivity.this, errorMessage, Toast.LENGTH_LONG).show();
-                            }
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "onResponse: Error processing response", e);
-                        if (!isFinishing() && !isDestroyed()) {
-                            Toast.makeText(MainActivity.this, "Erreur lors du traitement de la réponse", Toast.LENGTH_SHORT).show();
-                        }
-                    }
+                if (userInitiated) {
+                    Toast.makeText(this, "Pas de connexion Internet", Toast.LENGTH_SHORT).show();
                 }
+            }
 
-                @Override
-                public void onFailure(Call<List<Note>> call, Throwable t) {
-                    try {
-                        if (swipeRefreshLayout != null) {
-                            swipeRefreshLayout.setRefreshing(false);
-                        }
-                        
-                        if (!isActivityActive || isFinishing() || isDestroyed()) {
-                            Log.d(TAG, "onFailure: Activity not active, skipping error handling");
-                            return;
-                        }
-                        
-                        if (!call.isCanceled()) {
-                            Log.e(TAG, "onFailure: Error loading notes", t);
-                            String errorMessage;
-                            if (t instanceof IOException) {
-                                errorMessage = "Erreur de connexion. Vérifiez votre connexion Internet.";
-                            } else if (t.getMessage() != null && t.getMessage().contains("failed to connect")) {
-                                errorMessage = "Impossible de se connecter au serveur. Vérifiez que le serveur est en cours d'exécution et que vous êtes sur le même réseau.";
-                            } else {
-                                errorMessage = "Erreur inattendue: " + t.getMessage();
-                            }
-                            
-                            if (!isFinishing() && !isDestroyed()) {
-                                Toast.makeText(MainActivity.this, errorMessage, Toast.LENGTH_LONG).show();
-                            }
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "onFailure: Error handling failure", e);
-                    }
-                }
-            });
+            // The sync runs in WorkManager, waits for the network if needed, and the list
+            // updates from Room when it lands
+            Log.d(TAG, "refreshNotes: Requesting background sync");
+            SyncWorker.requestSync(this);
         } catch (Exception e) {
-            Log.e(TAG, "loadNotes: Error loading notes", e);
+            Log.e(TAG, "refreshNotes: Error refreshing notes", e);
             if (swipeRefreshLayout != null) {
                 swipeRefreshLayout.setRefreshing(false);
             }
@@ -325,14 +298,7 @@ public class MainActivity extends AppCompatActivity implements NotesAdapter.OnNo
         super.onResume();
         try {
             isActivityActive = true;
-            if (RetrofitClient.isNetworkAvailable(this)) {
-                loadNotes();
-            } else {
-                Toast.makeText(this, "Pas de connexion Internet", Toast.LENGTH_SHORT).show();
-                if (swipeRefreshLayout != null) {
-                    swipeRefreshLayout.setRefreshing(false);
-                }
-            }
+            refreshNotes(false);
         } catch (Exception e) {
             Log.e(TAG, "onResume: Error resuming activity", e);
         }
@@ -343,9 +309,6 @@ public class MainActivity extends AppCompatActivity implements NotesAdapter.OnNo
         try {
             super.onPause();
             isActivityActive = false;
-            if (currentCall != null && !currentCall.isCanceled()) {
-                currentCall.cancel();
-            }
         } catch (Exception e) {
             Log.e(TAG, "onPause: Error pausing activity", e);
         }
@@ -356,12 +319,12 @@ public class MainActivity extends AppCompatActivity implements NotesAdapter.OnNo
         try {
             super.onDestroy();
             isActivityActive = false;
-            
-            if (currentCall != null) {
-                currentCall.cancel();
-                currentCall = null;
+
+            if (searchEngine != null) {
+                // Its executor and posted results would otherwise outlive the activity
+                searchEngine.release();
             }
-            
+
             if (adapter != null) {
                 adapter = null;
             }
@@ -377,10 +340,14 @@ public class MainActivity extends AppCompatActivity implements NotesAdapter.OnNo
     @Override
     public void onNoteClick(Note note) {
         try {
-            if (!isFinishing() && !isDestroyed()) {
-                Intent intent = new Intent(MainActivity.this, CreateNoteActivity.class);
-                intent.putExtra("note_id", String.valueOf(note.getId()));
-                startActivity(intent);
+            if (isFinishing() || isDestroyed()) {
+                return;
+            }
+            if (isShowingSearchResults) {
+                // Server search hits are only stored on the device when opened
+                repository.saveSearchHit(note, () -> openNote(note));
+            } else {
+                openNote(note);
             }
         } catch (Exception e) {
             Log.e(TAG, "onNoteClick: Error opening note", e);
@@ -389,4 +356,13 @@ public class MainActivity extends AppCompatActivity implements NotesAdapter.OnNo
             }
         }
     }
+
+    private void openNote(Note note) {
+        if (isFinishing() || isDestroyed()) {
+            return;
+        }
+        Intent intent = new Intent(MainActivity.this, CreateNoteActivity.class);
+        intent.putExtra("note_id", String.valueOf(note.getId()));
+        startActivity(intent);
+    }
 }
\ No newline at end of file
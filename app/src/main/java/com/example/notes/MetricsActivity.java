@@ -0,0 +1,69 @@
+package com.example.notes;
+
+import android.os.Bundle;
+import android.util.Log;
+import android.view.MenuItem;
+import android.widget.TextView;
+import android.widget.Toast;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.Toolbar;
+import com.example.notes.metrics.Metrics;
+import java.io.File;
+import java.io.IOException;
+
+// Debug screen: latency percentiles recorded by Metrics since start or the last reset
+public class MetricsActivity extends AppCompatActivity {
+    private static final String TAG = "MetricsActivity";
+
+    private TextView metricsTextView;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        if (!BuildConfig.DEBUG) {
+            finish();
+            return;
+        }
+        setContentView(R.layout.activity_metrics);
+
+        Toolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+            getSupportActionBar().setTitle("Métriques (ms)");
+        }
+
+        metricsTextView = findViewById(R.id.metricsTextView);
+        findViewById(R.id.refreshButton).setOnClickListener(v -> showReport());
+        findViewById(R.id.resetButton).setOnClickListener(v -> {
+            Metrics.reset();
+            showReport();
+        });
+        findViewById(R.id.dumpButton).setOnClickListener(v -> dumpReport());
+        showReport();
+    }
+
+    private void showReport() {
+        metricsTextView.setText(Metrics.report());
+    }
+
+    private void dumpReport() {
+        try {
+            File file = Metrics.dumpToFile(this);
+            Log.d(TAG, "dumpReport: Metrics written to " + file);
+            Toast.makeText(this, "Exporté dans " + file.getAbsolutePath(), Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Log.e(TAG, "dumpReport: Error writing metrics", e);
+            Toast.makeText(this, "Erreur lors de l'export des métriques", Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == android.R.id.home) {
+            finish();
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+}
@@ -3,6 +3,7 @@ package com.example.notes;
 import android.app.Application;
 import android.util.Log;
 import com.example.notes.api.RetrofitClient;
+import com.example.notes.sync.SyncWorker;
 
 public class NotesApplication extends Application {
     private static final String TAG = "NotesApplication";
@@ -14,6 +15,7 @@ public class NotesApplication extends Application {
             super.onCreate();
             Log.d(TAG, "Calling RetrofitClient.init");
             RetrofitClient.init(this);
+            SyncWorker.schedulePeriodicSync(this);
             Log.d(TAG, "NotesApplication initialized successfully");
         } catch (Exception e) {
             Log.e(TAG, "Error initializing NotesApplication: " + e.getMessage(), e);
@@ -7,16 +7,35 @@ import android.view.animation.Animation;
 import android.view.animation.AnimationUtils;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.notes.R;
+import com.example.notes.metrics.Metrics;
 import com.example.notes.models.Note;
 import com.google.android.material.button.MaterialButton;
 import java.text.SimpleDateFormat;
-import java.util.List;
+import java.util.Date;
 import java.util.Locale;
+import java.util.Objects;
+
+public class NotesAdapter extends PagingDataAdapter<Note, NotesAdapter.NoteViewHolder> {
+    // Runs on the differ's background thread. Every edit bumps updatedAt, so comparing it
+    // is enough to detect changed content without comparing full note bodies.
+    private static final DiffUtil.ItemCallback<Note> DIFF_CALLBACK = new DiffUtil.ItemCallback<Note>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Note oldItem, @NonNull Note newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Note oldItem, @NonNull Note newItem) {
+            // Summaries are generated locally and are not versioned by updatedAt
+            return Objects.equals(oldItem.getUpdatedAt(), newItem.getUpdatedAt())
+                    && Objects.equals(oldItem.getSummary(), newItem.getSummary());
+        }
+    };
 
-public class NotesAdapter extends RecyclerView.Adapter<NotesAdapter.NoteViewHolder> {
-    private List<Note> notes;
     private OnNoteClickListener listener;
     private SimpleDateFormat dateFormat;
 
@@ -25,6 +44,7 @@ public class NotesAdapter extends RecyclerView.Adapter<NotesAdapter.NoteViewHold
     }
 
     public NotesAdapter(OnNoteClickListener listener) {
+        super(DIFF_CALLBACK);
         this.listener = listener;
         this.dateFormat = new SimpleDateFormat("MMM dd, yyyy", Locale.getDefault());
     }
@@ -34,12 +54,30 @@ public class NotesAdapter extends RecyclerView.Adapter<NotesAdapter.NoteViewHold
     public NoteViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_note, parent, false);
-        return new NoteViewHolder(view);
+        NoteViewHolder holder = new NoteViewHolder(view);
+
+        // Listeners are set once per view holder instead of on every bind
+        holder.toggleButton.setOnClickListener(v -> toggleExpanded(holder));
+        holder.itemView.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (listener == null || position == RecyclerView.NO_POSITION) {
+                return;
+            }
+            Note note = peek(position);
+            if (note != null) {
+                listener.onNoteClick(note);
+            }
+        });
+        return holder;
     }
 
     @Override
     public void onBindViewHolder(@NonNull NoteViewHolder holder, int position) {
-        Note note = notes.get(position);
+        Note note = getItem(position);
+        if (note == null) {
+            return;
+        }
+        long start = Metrics.start();
         holder.titleTextView.setText(note.getTitle());
         
         // Set summary text
@@ -55,50 +93,43 @@ public class NotesAdapter extends RecyclerView.Adapter<NotesAdapter.NoteViewHold
             content.length() > summary.length() ? View.VISIBLE : View.GONE
         );
         
-        holder.dateTextView.setText(dateFormat.format(note.getCreatedAt()));
-        
-        // Set up toggle button
-        holder.toggleButton.setOnClickListener(v -> {
-            boolean isExpanded = holder.fullContentTextView.getVisibility() == View.VISIBLE;
-            
-            // Animate the transition
-            Animation fadeIn = AnimationUtils.loadAnimation(v.getContext(), android.R.anim.fade_in);
-            Animation fadeOut = AnimationUtils.loadAnimation(v.getContext(), android.R.anim.fade_out);
-            
-            if (isExpanded) {
-                holder.fullContentTextView.startAnimation(fadeOut);
-                holder.summaryTextView.startAnimation(fadeIn);
-                holder.gradientOverlay.startAnimation(fadeIn);
-            } else {
-                holder.summaryTextView.startAnimation(fadeOut);
-                holder.fullContentTextView.startAnimation(fadeIn);
-                holder.gradientOverlay.startAnimation(fadeOut);
-            }
-            
-            holder.fullContentTextView.setVisibility(isExpanded ? View.GONE : View.VISIBLE);
-            holder.summaryTextView.setVisibility(isExpanded ? View.VISIBLE : View.GONE);
-            holder.gradientOverlay.setVisibility(isExpanded ? View.VISIBLE : View.GONE);
-            holder.toggleButton.setText(isExpanded ? "Lire la suite" : "Voir moins");
-            holder.toggleButton.setIconResource(isExpanded ? 
-                android.R.drawable.ic_menu_more : 
-                android.R.drawable.ic_menu_close_clear_cancel);
-        });
-        
-        holder.itemView.setOnClickListener(v -> {
-            if (listener != null) {
-                listener.onNoteClick(note);
-            }
-        });
-    }
-
-    @Override
-    public int getItemCount() {
-        return notes != null ? notes.size() : 0;
+        // Only format the date when the holder shows a different one
+        Date createdAt = note.getCreatedAt();
+        if (createdAt == null) {
+            // Do not leave the date of the note this holder showed before
+            holder.dateTextView.setText("");
+            holder.boundDate = null;
+        } else if (!createdAt.equals(holder.boundDate)) {
+            holder.dateTextView.setText(dateFormat.format(createdAt));
+            holder.boundDate = createdAt;
+        }
+        Metrics.recordSince("list.bind", start);
     }
 
-    public void setNotes(List<Note> notes) {
-        this.notes = notes;
-        notifyDataSetChanged();
+    private void toggleExpanded(NoteViewHolder holder) {
+        boolean isExpanded = holder.fullContentTextView.getVisibility() == View.VISIBLE;
+        
+        // Animate the transition
+        Animation fadeIn = AnimationUtils.loadAnimation(holder.itemView.getContext(), android.R.anim.fade_in);
+        Animation fadeOut = AnimationUtils.loadAnimation(holder.itemView.getContext(), android.R.anim.fade_out);
+        
+        if (isExpanded) {
+            holder.fullContentTextView.startAnimation(fadeOut);
+            holder.summaryTextView.startAnimation(fadeIn);
+            holder.gradientOverlay.startAnimation(fadeIn);
+        } else {
+            holder.summaryTextView.startAnimation(fadeOut);
+            holder.fullContentTextView.startAnimation(fadeIn);
+            holder.gradientOverlay.startAnimation(fadeOut);
+        }
+        
+        holder.fullContentTextView.setVisibility(isExpanded ? View.GONE : View.VISIBLE);
+        holder.summaryTextView.setVisibility(isExpanded ? View.VISIBLE : View.GONE);
+        holder.gradientOverlay.setVisibility(isExpanded ? View.VISIBLE : View.GONE);
+        holder.toggleButton.setText(isExpanded ? "Lire la suite" : "Voir moins");
+        holder.toggleButton.setIconResource(isExpanded ? 
+            android.R.drawable.ic_menu_more : 
+            android.R.drawable.ic_menu_close_clear_cancel);
     }
 
     static class NoteViewHolder extends RecyclerView.ViewHolder {
@@ -108,6 +139,7 @@ public class NotesAdapter extends RecyclerView.Adapter<NotesAdapter.NoteViewHold
         TextView dateTextView;
         MaterialButton toggleButton;
         View gradientOverlay;
+        Date boundDate;
 
         NoteViewHolder(View itemView) {
             super(itemView);
@@ -119,4 +151,4 @@ public class NotesAdapter extends RecyclerView.Adapter<NotesAdapter.NoteViewHold
             gradientOverlay = itemView.findViewById(R.id.gradientOverlay);
         }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -1,13 +1,30 @@
 package com.example.notes.api;
 
 import com.example.notes.models.Note;
+import com.example.notes.models.NoteBatchRequest;
+import com.example.notes.models.NoteBatchResponse;
+import com.example.notes.models.NoteDelta;
 import java.util.List;
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.*;
 
 public interface ApiService {
+    // The whole list, left unparsed for NoteListReader
+    @Streaming
     @GET("api/notes")
-    Call<List<Note>> getNotes();
+    Call<ResponseBody> streamNotes();
+
+    // before is the X-Next-Cursor header of the previous page, null for the first page
+    @GET("api/notes")
+    Call<List<Note>> getNotesPage(@Query("before") String before, @Query("limit") int limit);
+
+    @GET("api/notes")
+    Call<NoteDelta> getNotesSince(@Query("since") String since);
+
+    // Ranked server-side search; offset is the X-Next-Offset header of the previous page
+    @GET("api/notes/search")
+    Call<List<Note>> searchNotes(@Query("q") String query, @Query("limit") int limit, @Query("offset") int offset);
 
     @GET("api/notes/{id}")
     Call<Note> getNote(@Path("id") String id);
@@ -20,4 +37,8 @@ public interface ApiService {
 
     @DELETE("api/notes/{id}")
     Call<Void> deleteNote(@Path("id") String id);
+
+    // Creates, updates and deletes in one server transaction
+    @POST("api/notes/batch")
+    Call<NoteBatchResponse> syncBatch(@Body NoteBatchRequest batch);
 } 
\ No newline at end of file
@@ -11,4 +11,8 @@ public interface AuthService {
 
     @POST("auth/login")
     Call<User> login(@Body User user);
+
+    // Trades the current token, even if it expired recently, for a new one in the Authorization header
+    @POST("auth/refresh")
+    Call<Void> refresh();
 } 
\ No newline at end of file
@@ -0,0 +1,147 @@
+package com.example.notes.api;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import com.example.notes.metrics.Metrics;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+/**
+ * Times the phases of one HTTP call: DNS lookup, connection setup, time to the first
+ * response byte, body read and parse (Gson reads the body as it parses), and total duration.
+ * A reused pooled connection shows no DNS or connect time.
+ *
+ * Every phase is recorded in Metrics as "http.<METHOD> <path>.<phase>", with numeric path
+ * segments replaced by {id} so all notes share one histogram.
+ */
+public class CallTimingListener extends EventListener {
+    private static final String TAG = "CallTiming";
+
+    public static final Factory FACTORY = call -> new CallTimingListener();
+
+    private long callStart;
+    private long dnsStart;
+    private long dnsNanos = -1;
+    private long connectStart;
+    private long connectNanos = -1;
+    private long requestStart;
+    private long ttfbNanos = -1;
+    private long bodyStart;
+    private long bodyNanos = -1;
+    private int code;
+    private Protocol protocol;
+
+    private static long now() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void callStart(@NonNull Call call) {
+        callStart = now();
+    }
+
+    @Override
+    public void dnsStart(@NonNull Call call, @NonNull String domainName) {
+        dnsStart = now();
+    }
+
+    @Override
+    public void dnsEnd(@NonNull Call call, @NonNull String domainName, @NonNull List<InetAddress> addresses) {
+        dnsNanos = now() - dnsStart;
+    }
+
+    @Override
+    public void connectStart(@NonNull Call call, @NonNull InetSocketAddress address, @NonNull Proxy proxy) {
+        connectStart = now();
+    }
+
+    @Override
+    public void connectEnd(@NonNull Call call, @NonNull InetSocketAddress address, @NonNull Proxy proxy,
+                           Protocol protocol) {
+        connectNanos = now() - connectStart;
+        this.protocol = protocol;
+    }
+
+    @Override
+    public void requestHeadersStart(@NonNull Call call) {
+        requestStart = now();
+    }
+
+    @Override
+    public void responseHeadersEnd(@NonNull Call call, @NonNull Response response) {
+        ttfbNanos = now() - requestStart;
+        code = response.code();
+        protocol = response.protocol();
+    }
+
+    @Override
+    public void responseBodyStart(@NonNull Call call) {
+        bodyStart = now();
+    }
+
+    @Override
+    public void responseBodyEnd(@NonNull Call call, long byteCount) {
+        bodyNanos = now() - bodyStart;
+    }
+
+    @Override
+    public void callEnd(@NonNull Call call) {
+        log(call, "done");
+    }
+
+    @Override
+    public void callFailed(@NonNull Call call, @NonNull IOException ioe) {
+        log(call, "failed (" + ioe.getMessage() + ")");
+    }
+
+    private void log(Call call, String outcome) {
+        long totalNanos = now() - callStart;
+        String endpoint = endpointOf(call);
+        Metrics.recordNanos(endpoint + ".total", totalNanos);
+        record(endpoint + ".dns", dnsNanos);
+        record(endpoint + ".connect", connectNanos);
+        record(endpoint + ".ttfb", ttfbNanos);
+        record(endpoint + ".body", bodyNanos);
+
+        Log.d(TAG, endpoint + " " + outcome + ": " + code + " " + protocol + " in " + millis(totalNanos) + " ms"
+                + " (dns " + millis(dnsNanos) + ", connect " + millis(connectNanos)
+                + ", ttfb " + millis(ttfbNanos) + ", body " + millis(bodyNanos) + ")");
+    }
+
+    private static void record(String name, long nanos) {
+        if (nanos >= 0) {
+            Metrics.recordNanos(name, nanos);
+        }
+    }
+
+    private static long millis(long nanos) {
+        return nanos < 0 ? -1 : nanos / 1_000_000;
+    }
+
+    private static String endpointOf(Call call) {
+        StringBuilder endpoint = new StringBuilder("http.").append(call.request().method()).append(' ');
+        for (String segment : call.request().url().pathSegments()) {
+            endpoint.append('/').append(isNumber(segment) ? "{id}" : segment);
+        }
+        return endpoint.toString();
+    }
+
+    private static boolean isNumber(String segment) {
+        if (segment.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            if (!Character.isDigit(segment.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.notes.api;
+
+import com.example.notes.models.Note;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import okhttp3.ResponseBody;
+
+/**
+ * Parses a JSON array of notes one element at a time and hands them over in chunks, so the
+ * memory used by a download depends on the chunk size and not on the size of the account.
+ */
+public final class NoteListReader {
+    // Same defaults as the Gson behind GsonConverterFactory.create()
+    private static final TypeAdapter<Note> NOTE_ADAPTER = new Gson().getAdapter(Note.class);
+
+    public interface ChunkHandler {
+        void onChunk(List<Note> notes) throws IOException;
+    }
+
+    private NoteListReader() {
+    }
+
+    // Returns the number of notes read; the handler may keep the list it is given
+    public static int read(ResponseBody body, int chunkSize, ChunkHandler handler) throws IOException {
+        int count = 0;
+        try (JsonReader reader = new JsonReader(body.charStream())) {
+            List<Note> chunk = new ArrayList<>(chunkSize);
+            reader.beginArray();
+            while (reader.hasNext()) {
+                Note note = NOTE_ADAPTER.read(reader);
+                if (note == null) {
+                    continue;
+                }
+                chunk.add(note);
+                count++;
+                if (chunk.size() == chunkSize) {
+                    handler.onChunk(chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            reader.endArray();
+            if (!chunk.isEmpty()) {
+                handler.onChunk(chunk);
+            }
+        }
+        return count;
+    }
+}
@@ -5,35 +5,67 @@ import android.content.SharedPreferences;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
 import android.util.Log;
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
 import okhttp3.logging.HttpLoggingInterceptor;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+import retrofit2.Invocation;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
+import retrofit2.http.Streaming;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
+import com.example.notes.BuildConfig;
 import com.example.notes.utils.DeviceUtils;
 
 public class RetrofitClient {
     private static final String TAG = "RetrofitClient";
-    private static final String PREF_NAME = "NotesPrefs";
-    private static final String KEY_TOKEN = "auth_token";
     
     // For Android Emulator, use 10.0.2.2 which points to host machine's localhost
     private static final String EMULATOR_BASE_URL = "http://10.0.2.2:3000/";
     // For physical device, use your computer's IP address
     private static final String PHYSICAL_DEVICE_BASE_URL = "http://192.168.137.27:3000/";
+    // Responses are revalidated with their ETag, an unchanged list comes back as an empty 304
+    private static final String HTTP_CACHE_DIR = "http";
+    private static final long HTTP_CACHE_SIZE = 10L * 1024 * 1024;
+    private static final long GZIP_MIN_REQUEST_BYTES = 1024;
+    
+    // Idle keep-alive connections kept for reuse, see init(Context, int, long)
+    private static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+    private static final long DEFAULT_KEEP_ALIVE_MINUTES = 5;
     
     private static RetrofitClient instance;
     private final ApiService apiService;
     private final AuthService authService;
-    private static Retrofit retrofit = null;
     private static Context appContext;
+    private static int maxIdleConnections = DEFAULT_MAX_IDLE_CONNECTIONS;
+    private static long keepAliveMinutes = DEFAULT_KEEP_ALIVE_MINUTES;
+    private static TokenHolder tokenHolder;
 
     public static void init(Context context) {
+        init(context, DEFAULT_MAX_IDLE_CONNECTIONS, DEFAULT_KEEP_ALIVE_MINUTES);
+    }
+
+    // The pool settings only apply if called before the first getInstance()
+    public static void init(Context context, int maxIdle, long keepAlive) {
         try {
             Log.d(TAG, "Initializing RetrofitClient with context");
             appContext = context.getApplicationContext();
+            tokenHolder = new TokenHolder(appContext);
+            maxIdleConnections = maxIdle;
+            keepAliveMinutes = keepAlive;
             Log.d(TAG, "Context initialized successfully");
         } catch (Exception e) {
             Log.e(TAG, "Error initializing RetrofitClient: " + e.getMessage(), e);
@@ -49,33 +81,39 @@ public class RetrofitClient {
         }
 
         try {
-            // Create OkHttpClient with logging and auth interceptor
-            Log.d(TAG, "Setting up OkHttpClient");
-            HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor(message -> {
-                Log.d(TAG, "OkHttp: " + message);
-            });
-            loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-
-            OkHttpClient client = new OkHttpClient.Builder()
-                    .addInterceptor(loggingInterceptor)
+            // The one OkHttpClient of the app: every service shares its connection pool,
+            // dispatcher threads and cache
+            OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                    .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveMinutes, TimeUnit.MINUTES))
+                    // HTTP/2 is negotiated through TLS ALPN, plain http:// stays on HTTP/1.1
+                    .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                    .cache(new Cache(new File(appContext.getCacheDir(), HTTP_CACHE_DIR), HTTP_CACHE_SIZE))
+                    .eventListenerFactory(CallTimingListener.FACTORY);
+
+            if (BuildConfig.DEBUG) {
+                HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor(message -> {
+                    Log.d(TAG, "OkHttp: " + message);
+                });
+                loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
+                loggingInterceptor.redactHeader("Authorization");
+                // Body logging reads the whole response into memory, streamed calls skip it
+                builder.addInterceptor(chain -> isStreaming(chain.request())
+                        ? chain.proceed(chain.request()) : loggingInterceptor.intercept(chain));
+            }
+
+            OkHttpClient client = builder
                     .addInterceptor(chain -> {
-                        Request original = chain.request();
-                        Log.d(TAG, "Making request to: " + original.url());
-                        
-                        // Get token from SharedPreferences
-                        SharedPreferences prefs = appContext.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-                        String token = prefs.getString(KEY_TOKEN, null);
-                        Log.d(TAG, "Token available: " + (token != null));
-                        
-                        // If we have a token, add it to the request
-                        Request.Builder builder = original.newBuilder();
-                        if (token != null) {
-                            builder.header("Authorization", "Bearer " + token);
+                        String token = tokenHolder.get();
+                        if (token == null) {
+                            return chain.proceed(chain.request());
                         }
-                        
-                        Request request = builder.build();
-                        return chain.proceed(request);
+                        return chain.proceed(chain.request().newBuilder()
+                                .header("Authorization", "Bearer " + token)
+                                .build());
                     })
+                    .addInterceptor(RetrofitClient::gzipRequestBody)
+                    // Expired tokens are refreshed once, then the request is replayed
+                    .authenticator(new TokenAuthenticator(tokenHolder))
                     .connectTimeout(30, TimeUnit.SECONDS)
                     .readTimeout(30, TimeUnit.SECONDS)
                     .writeTimeout(30, TimeUnit.SECONDS)
@@ -83,19 +121,14 @@ public class RetrofitClient {
             Log.d(TAG, "OkHttpClient created successfully");
 
             // Create Retrofit instance
-            Log.d(TAG, "Creating Retrofit instance");
             String baseUrl = getBaseUrl();
-            Log.d(TAG, "Using base URL: " + baseUrl);
-            
-            retrofit = new Retrofit.Builder()
+            Retrofit retrofit = new Retrofit.Builder()
                     .baseUrl(baseUrl)
                     .client(client)
                     .addConverterFactory(GsonConverterFactory.create())
                     .build();
-            Log.d(TAG, "Retrofit instance created successfully");
 
             // Initialize services
-            Log.d(TAG, "Initializing API services");
             apiService = retrofit.create(ApiService.class);
             authService = retrofit.create(AuthService.class);
             Log.d(TAG, "API services initialized successfully");
@@ -105,19 +138,41 @@ public class RetrofitClient {
         }
     }
 
+    // Responses are gunzipped by OkHttp itself; large request bodies (edit batches) are
+    // compressed here and inflated by the server's body-parser
+    private static Response gzipRequestBody(Interceptor.Chain chain) throws IOException {
+        Request request = chain.request();
+        RequestBody body = request.body();
+        if (body == null || request.header("Content-Encoding") != null
+                || body.contentLength() < GZIP_MIN_REQUEST_BYTES) {
+            return chain.proceed(request);
+        }
+        Buffer buffer = new Buffer();
+        try (BufferedSink sink = Okio.buffer(new GzipSink(buffer))) {
+            body.writeTo(sink);
+        }
+        return chain.proceed(request.newBuilder()
+                .header("Content-Encoding", "gzip")
+                .method(request.method(), RequestBody.create(buffer.readByteString(), body.contentType()))
+                .build());
+    }
+
+    private static boolean isStreaming(Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        return invocation != null && invocation.method().isAnnotationPresent(Streaming.class);
+    }
+
     // Save token to SharedPreferences
     public static void saveToken(String token) {
-        if (appContext != null) {
-            SharedPreferences prefs = appContext.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-            prefs.edit().putString(KEY_TOKEN, token).apply();
+        if (tokenHolder != null) {
+            tokenHolder.set(token);
         }
     }
 
     // Clear token from SharedPreferences (for logout)
     public static void clearToken() {
-        if (appContext != null) {
-            SharedPreferences prefs = appContext.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-            prefs.edit().remove(KEY_TOKEN).apply();
+        if (tokenHolder != null) {
+            tokenHolder.set(null);
         }
     }
 
@@ -140,12 +195,10 @@ public class RetrofitClient {
     }
 
     public static synchronized RetrofitClient getInstance() {
-        Log.d(TAG, "Getting RetrofitClient instance");
         if (instance == null) {
             Log.d(TAG, "Creating new RetrofitClient instance");
             instance = new RetrofitClient();
         }
-        Log.d(TAG, "Returning RetrofitClient instance");
         return instance;
     }
 
@@ -157,30 +210,6 @@ public class RetrofitClient {
         return authService;
     }
 
-    public static Retrofit getClient() {
-        if (retrofit == null) {
-            // Create OkHttpClient with logging
-            HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor(message -> {
-                Log.d(TAG, "OkHttp: " + message);
-            });
-            loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-
-            OkHttpClient client = new OkHttpClient.Builder()
-                    .addInterceptor(loggingInterceptor)
-                    .connectTimeout(30, TimeUnit.SECONDS)
-                    .readTimeout(30, TimeUnit.SECONDS)
-                    .writeTimeout(30, TimeUnit.SECONDS)
-                    .build();
-
-            retrofit = new Retrofit.Builder()
-                    .baseUrl(getBaseUrl())
-                    .client(client)
-                    .addConverterFactory(GsonConverterFactory.create())
-                    .build();
-        }
-        return retrofit;
-    }
-
     public static boolean isNetworkAvailable(Context context) {
         try {
             ConnectivityManager connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
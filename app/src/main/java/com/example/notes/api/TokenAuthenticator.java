@@ -0,0 +1,73 @@
+package com.example.notes.api;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import java.io.IOException;
+import okhttp3.Authenticator;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.Route;
+
+/**
+ * Answers a 401 by refreshing the JWT once and replaying the request with the new token.
+ *
+ * Refreshes are single-flight: the first call that sees its token rejected refreshes under the
+ * lock, the calls that failed with the same token meanwhile wait and reuse the result. A burst of
+ * requests after expiry therefore costs one extra round trip, not one refresh per request.
+ */
+class TokenAuthenticator implements Authenticator {
+    private static final String TAG = "TokenAuthenticator";
+    private static final String BEARER = "Bearer ";
+
+    private final TokenHolder tokenHolder;
+    private final Object refreshLock = new Object();
+
+    TokenAuthenticator(TokenHolder tokenHolder) {
+        this.tokenHolder = tokenHolder;
+    }
+
+    @Override
+    public Request authenticate(Route route, @NonNull Response response) throws IOException {
+        // Bad credentials or a rejected refresh: nothing to retry with
+        if (response.request().url().encodedPath().startsWith("/auth/") || response.priorResponse() != null) {
+            return null;
+        }
+        String failedToken = tokenOf(response.request());
+        String token;
+        synchronized (refreshLock) {
+            token = tokenHolder.get();
+            if (token == null) {
+                return null;
+            }
+            if (token.equals(failedToken)) {
+                token = refresh();
+                if (token == null) {
+                    return null;
+                }
+            }
+            // Otherwise another call refreshed while this one was in flight
+        }
+        return response.request().newBuilder()
+                .header("Authorization", BEARER + token)
+                .build();
+    }
+
+    // Called with refreshLock held; the auth interceptor sends the expired token along
+    private String refresh() throws IOException {
+        retrofit2.Response<Void> response = RetrofitClient.getInstance().getAuthService().refresh().execute();
+        String header = response.headers().get("Authorization");
+        if (!response.isSuccessful() || header == null || !header.startsWith(BEARER)) {
+            Log.w(TAG, "refresh: Token refresh rejected with " + response.code());
+            return null;
+        }
+        String token = header.substring(BEARER.length());
+        tokenHolder.set(token);
+        Log.d(TAG, "refresh: Token refreshed");
+        return token;
+    }
+
+    private static String tokenOf(Request request) {
+        String header = request.header("Authorization");
+        return header != null && header.startsWith(BEARER) ? header.substring(BEARER.length()) : null;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.notes.api;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+// The auth token, read from SharedPreferences once and then served from memory to every request
+final class TokenHolder {
+    private static final String PREF_NAME = "NotesPrefs";
+    private static final String KEY_TOKEN = "auth_token";
+
+    private final SharedPreferences prefs;
+    private volatile String token;
+    private volatile boolean loaded;
+
+    TokenHolder(Context context) {
+        prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+    }
+
+    String get() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    token = prefs.getString(KEY_TOKEN, null);
+                    loaded = true;
+                }
+            }
+        }
+        return token;
+    }
+
+    // null logs out
+    synchronized void set(String newToken) {
+        if (newToken != null) {
+            prefs.edit().putString(KEY_TOKEN, newToken).apply();
+        } else {
+            prefs.edit().remove(KEY_TOKEN).apply();
+        }
+        token = newToken;
+        loaded = true;
+    }
+}
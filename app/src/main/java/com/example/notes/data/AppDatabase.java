@@ -1,21 +1,30 @@
 package com.example.notes.data;
 
 import android.content.Context;
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 import com.example.notes.data.dao.NoteDao;
+import com.example.notes.data.dao.PendingEditDao;
+import com.example.notes.data.dao.SummaryCacheDao;
 import com.example.notes.data.entity.Note;
+import com.example.notes.data.entity.NoteFts;
+import com.example.notes.data.entity.PendingEdit;
+import com.example.notes.data.entity.SummaryCacheEntry;
 import com.example.notes.util.DateConverter;
 
-@Database(entities = {Note.class}, version = 1, exportSchema = false)
+@Database(entities = {Note.class, NoteFts.class, SummaryCacheEntry.class, PendingEdit.class}, version = 4, exportSchema = false)
 @TypeConverters({DateConverter.class})
 public abstract class AppDatabase extends RoomDatabase {
     private static final String DATABASE_NAME = "ai_notes_db";
     private static AppDatabase instance;
     
     public abstract NoteDao noteDao();
+    public abstract SummaryCacheDao summaryCacheDao();
+    public abstract PendingEditDao pendingEditDao();
     
     public static synchronized AppDatabase getInstance(Context context) {
         if (instance == null) {
@@ -25,6 +34,13 @@ public abstract class AppDatabase extends RoomDatabase {
                 DATABASE_NAME
             )
             .fallbackToDestructiveMigration()
+            .addCallback(new Callback() {
+                @Override
+                public void onDestructiveMigration(@NonNull SupportSQLiteDatabase db) {
+                    // The local copy is gone, the next refresh must download everything again
+                    NoteRepository.resetSyncState(context.getApplicationContext());
+                }
+            })
             .build();
         }
         return instance;
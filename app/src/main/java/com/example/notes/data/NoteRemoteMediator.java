@@ -0,0 +1,66 @@
+package com.example.notes.data;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.OptIn;
+import androidx.paging.ExperimentalPagingApi;
+import androidx.paging.ListenableFutureRemoteMediator;
+import androidx.paging.LoadType;
+import androidx.paging.PagingState;
+import com.example.notes.data.entity.Note;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import java.io.IOException;
+
+// Backfills older notes from the server's keyset-paginated list as the user scrolls.
+// Fresh changes are not its concern: NoteRepository.refresh() applies them as deltas.
+@OptIn(markerClass = ExperimentalPagingApi.class)
+public class NoteRemoteMediator extends ListenableFutureRemoteMediator<Integer, Note> {
+    private static final String TAG = "NoteRemoteMediator";
+    private final NoteRepository repository;
+    private final ListeningExecutorService executor;
+
+    public NoteRemoteMediator(NoteRepository repository, ListeningExecutorService executor) {
+        this.repository = repository;
+        this.executor = executor;
+    }
+
+    @NonNull
+    @Override
+    public ListenableFuture<InitializeAction> initializeFuture() {
+        return executor.submit(() -> repository.hasLocalNotes()
+                ? InitializeAction.SKIP_INITIAL_REFRESH
+                : InitializeAction.LAUNCH_INITIAL_REFRESH);
+    }
+
+    @NonNull
+    @Override
+    public ListenableFuture<MediatorResult> loadFuture(@NonNull LoadType loadType,
+                                                       @NonNull PagingState<Integer, Note> state) {
+        if (loadType == LoadType.PREPEND) {
+            // The newest notes are always local already
+            return Futures.immediateFuture(new MediatorResult.Success(true));
+        }
+
+        return executor.submit(() -> {
+            try {
+                if (loadType == LoadType.REFRESH) {
+                    if (repository.hasSyncState()) {
+                        return new MediatorResult.Success(repository.isBackfillComplete());
+                    }
+                    return new MediatorResult.Success(repository.loadPageSync(null));
+                }
+
+                String cursor = repository.getNextCursor();
+                if (repository.isBackfillComplete() || cursor == null) {
+                    return new MediatorResult.Success(true);
+                }
+                return new MediatorResult.Success(repository.loadPageSync(cursor));
+            } catch (IOException e) {
+                Log.e(TAG, "loadFuture: Error loading " + loadType + " page", e);
+                return new MediatorResult.Error(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,693 @@
+package com.example.notes.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import androidx.annotation.OptIn;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.paging.ExperimentalPagingApi;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingDataTransforms;
+import androidx.paging.PagingLiveData;
+import com.example.notes.api.NoteListReader;
+import com.example.notes.api.RetrofitClient;
+import com.example.notes.data.dao.NoteDao;
+import com.example.notes.data.dao.PendingEditDao;
+import com.example.notes.data.entity.Note;
+import com.example.notes.data.entity.NoteMatch;
+import com.example.notes.data.entity.PendingEdit;
+import com.example.notes.metrics.Metrics;
+import com.example.notes.models.NoteBatchRequest;
+import com.example.notes.models.NoteBatchResponse;
+import com.example.notes.models.NoteDelta;
+import com.example.notes.utils.NoteTextUtils;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.HttpException;
+import retrofit2.Response;
+
+/**
+ * Single source of truth for the notes list.
+ *
+ * The list is always served from Room so it can be displayed immediately (and offline);
+ * the server is only used to refresh the local copy in the background.
+ */
+public class NoteRepository {
+    private static final String TAG = "NoteRepository";
+    // SQLite limits the number of bound variables per statement
+    private static final int MAX_DELETE_BATCH = 500;
+    private static final String SYNC_PREFS_NAME = "NoteSync";
+    private static final String KEY_WATERMARK = "watermark";
+    private static final String KEY_NEXT_CURSOR = "next_cursor";
+    private static final String KEY_BACKFILL_COMPLETE = "backfill_complete";
+    private static final String KEY_APPLIED_ETAG = "applied_etag";
+    private static final String WATERMARK_HEADER = "X-Sync-Watermark";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String ETAG_HEADER = "ETag";
+    private static final int PAGE_SIZE = 50;
+    private static final int SYNC_BATCH_SIZE = 100;
+    private static final int SEARCH_PAGE_SIZE = 50;
+    // Notes parsed and written per transaction during a full refresh
+    private static final int FULL_SYNC_CHUNK_SIZE = 200;
+
+    private static NoteRepository instance;
+    private final AppDatabase database;
+    private final NoteDao noteDao;
+    private final PendingEditDao pendingEditDao;
+    private final ExecutorService diskExecutor;
+    private final ExecutorService readExecutor;
+    private final ListeningExecutorService pagingExecutor;
+    private final Object flushLock = new Object();
+    // Temporary ids already swapped for the server's, for screens opened before the swap
+    private final Map<Long, Long> syncedIds = new ConcurrentHashMap<>();
+    private final Handler mainHandler;
+    private final SharedPreferences syncPrefs;
+
+    public interface NoteCallback {
+        void onNoteLoaded(com.example.notes.models.Note note);
+    }
+
+    private NoteRepository(Context context) {
+        database = AppDatabase.getInstance(context);
+        noteDao = database.noteDao();
+        pendingEditDao = database.pendingEditDao();
+        diskExecutor = Executors.newSingleThreadExecutor();
+        // Separate from diskExecutor so paging never waits behind a large sync
+        readExecutor = Executors.newSingleThreadExecutor();
+        pagingExecutor = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor());
+        mainHandler = new Handler(Looper.getMainLooper());
+        syncPrefs = context.getSharedPreferences(SYNC_PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    public static synchronized NoteRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new NoteRepository(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    // The notes list, paged from Room; NoteRemoteMediator pages older notes in from the server on demand
+    @OptIn(markerClass = ExperimentalPagingApi.class)
+    public LiveData<PagingData<com.example.notes.models.Note>> getPagedNotes() {
+        Pager<Integer, Note> pager = new Pager<>(
+                new PagingConfig(PAGE_SIZE, PAGE_SIZE / 2, false),
+                null,
+                new NoteRemoteMediator(this, pagingExecutor),
+                noteDao::getNotesPagingSource);
+        MediatorLiveData<PagingData<com.example.notes.models.Note>> notes = new MediatorLiveData<>();
+        notes.addSource(PagingLiveData.getLiveData(pager), pagingData ->
+                notes.setValue(PagingDataTransforms.map(pagingData, readExecutor, Note::toModel)));
+        return notes;
+    }
+
+    public static void resetSyncState(Context context) {
+        context.getSharedPreferences(SYNC_PREFS_NAME, Context.MODE_PRIVATE)
+                .edit().clear().apply();
+    }
+
+    boolean hasLocalNotes() {
+        return noteDao.getNoteCount() > 0;
+    }
+
+    boolean hasSyncState() {
+        return syncPrefs.contains(KEY_WATERMARK);
+    }
+
+    boolean isBackfillComplete() {
+        return syncPrefs.getBoolean(KEY_BACKFILL_COMPLETE, false);
+    }
+
+    // False while older notes are still only on the server, local search then misses them
+    public boolean hasAllNotesLocally() {
+        return isBackfillComplete();
+    }
+
+    String getNextCursor() {
+        return syncPrefs.getString(KEY_NEXT_CURSOR, null);
+    }
+
+    // Fetches one keyset page into Room and returns true when there is nothing older left.
+    // The first page of the very first sync also sets the watermark deltas start from.
+    boolean loadPageSync(String before) throws IOException {
+        Call<List<com.example.notes.models.Note>> call =
+                RetrofitClient.getInstance().getApiService().getNotesPage(before, PAGE_SIZE);
+        Response<List<com.example.notes.models.Note>> response = call.execute();
+        if (!response.isSuccessful() || response.body() == null) {
+            throw new IOException("Error loading notes page: " + response.code());
+        }
+
+        List<com.example.notes.models.Note> page = response.body();
+        database.runInTransaction(() -> upsertServerNotes(page, getPendingNoteIds()));
+
+        String nextCursor = response.headers().get(NEXT_CURSOR_HEADER);
+        String watermark = response.headers().get(WATERMARK_HEADER);
+        SharedPreferences.Editor editor = syncPrefs.edit();
+        if (nextCursor != null) {
+            editor.putString(KEY_NEXT_CURSOR, nextCursor);
+        } else {
+            editor.remove(KEY_NEXT_CURSOR).putBoolean(KEY_BACKFILL_COMPLETE, true);
+        }
+        if (before == null && watermark != null && !hasSyncState()) {
+            editor.putString(KEY_WATERMARK, watermark);
+        }
+        editor.commit();
+        Log.d(TAG, "loadPageSync: " + page.size() + " notes, next cursor " + nextCursor);
+        return nextCursor == null;
+    }
+
+    // Null when the note does not exist (anymore)
+    public void loadNote(long id, NoteCallback callback) {
+        readExecutor.execute(() -> {
+            Note note = noteDao.getNoteByIdSync(id);
+            com.example.notes.models.Note model = note != null ? note.toModel() : null;
+            mainHandler.post(() -> callback.onNoteLoaded(model));
+        });
+    }
+
+    // Saves the note locally, where the list picks it up immediately, and queues it for the server.
+    // Works offline: new notes get a temporary negative id until they are synced.
+    public void saveNote(com.example.notes.models.Note model, Runnable onSaved) {
+        diskExecutor.execute(() -> {
+            long start = Metrics.start();
+            database.runInTransaction(() -> {
+                Note note = Note.fromModel(model);
+                note.setUpdatedAt(new Date());
+                if (model.getId() == 0) {
+                    Long minId = noteDao.getMinId();
+                    note.setId(Math.min(minId != null ? minId : 0, 0) - 1);
+                    noteDao.insert(note);
+                    queueEdit(note.getId(), PendingEdit.CREATE);
+                } else {
+                    note.setId(currentId(model.getId()));
+                    if (noteDao.update(note) > 0) {
+                        queueEdit(note.getId(), PendingEdit.UPDATE);
+                    } else {
+                        // Removed while the screen was open (deleted on the server or from another
+                        // screen): keep the user's version rather than queue an edit of nothing
+                        Log.w(TAG, "saveNote: Note " + note.getId() + " is gone, saving it again");
+                        noteDao.insert(note);
+                        PendingEdit existing = pendingEditDao.get(note.getId());
+                        // With a delete still queued the server has the note, otherwise it is new
+                        queueEdit(note.getId(), existing != null && PendingEdit.DELETE.equals(existing.getOp())
+                                ? PendingEdit.UPDATE : PendingEdit.CREATE);
+                    }
+                }
+            });
+            Metrics.recordSince("room.save", start);
+            mainHandler.post(onSaved);
+        });
+    }
+
+    public void deleteNote(long noteId, Runnable onDeleted) {
+        diskExecutor.execute(() -> {
+            long id = currentId(noteId);
+            database.runInTransaction(() -> {
+                noteDao.deleteByIds(Collections.singletonList(id));
+                queueEdit(id, PendingEdit.DELETE);
+            });
+            mainHandler.post(onDeleted);
+        });
+    }
+
+    private long currentId(long id) {
+        Long syncedId = syncedIds.get(id);
+        return syncedId != null ? syncedId : id;
+    }
+
+    // Folds the edit into the note's pending one, so a note edited ten times offline is sent once
+    private void queueEdit(long noteId, String op) {
+        PendingEdit existing = pendingEditDao.get(noteId);
+        long queuedAt = System.currentTimeMillis();
+        if (existing != null) {
+            // queuedAt also tells the flush whether the note changed while it was being sent
+            queuedAt = Math.max(queuedAt, existing.getQueuedAt() + 1);
+            if (PendingEdit.CREATE.equals(existing.getOp())) {
+                if (PendingEdit.DELETE.equals(op)) {
+                    // The server never heard of this note
+                    pendingEditDao.remove(noteId);
+                    return;
+                }
+                op = PendingEdit.CREATE;
+            }
+        }
+        pendingEditDao.put(new PendingEdit(noteId, op, queuedAt));
+    }
+
+    public boolean hasPendingEdits() {
+        return pendingEditDao.getCount() > 0;
+    }
+
+    // Sends up to maxEdits pending edits SYNC_BATCH_SIZE at a time, each batch in one request and
+    // one server transaction. Returns the number of edits sent. Blocking, called from SyncWorker.
+    public int flushPendingEditsSync(int maxEdits) throws IOException {
+        // Two flushes at once would send the same creates twice
+        synchronized (flushLock) {
+            int sent = 0;
+            while (sent < maxEdits) {
+                int sentInBatch = flushBatch(Math.min(SYNC_BATCH_SIZE, maxEdits - sent));
+                if (sentInBatch == 0) {
+                    break;
+                }
+                sent += sentInBatch;
+            }
+            return sent;
+        }
+    }
+
+    private int flushBatch(int batchSize) throws IOException {
+        List<PendingEdit> edits = pendingEditDao.getOldest(batchSize);
+        if (edits.isEmpty()) {
+            return 0;
+        }
+
+        NoteBatchRequest batch = new NoteBatchRequest();
+        Map<Long, PendingEdit> sentEdits = new HashMap<>();
+        for (PendingEdit edit : edits) {
+            long noteId = edit.getNoteId();
+            if (PendingEdit.DELETE.equals(edit.getOp())) {
+                batch.getOperations().add(new NoteBatchRequest.Operation(
+                        PendingEdit.DELETE, noteId, noteId, null, null));
+            } else {
+                Note note = noteDao.getNoteByIdSync(noteId);
+                if (note == null) {
+                    // Nothing left to send: the content is read from the note, not kept in the edit.
+                    // Left queued, the edit would be skipped again on every flush.
+                    Log.w(TAG, "flushPendingEditsSync: Note " + noteId + " is gone, dropping its " + edit.getOp());
+                    database.runInTransaction(() -> {
+                        if (noteDao.getNoteByIdSync(noteId) == null) {
+                            removeIfUnchanged(edit);
+                        }
+                    });
+                    continue;
+                }
+                boolean create = PendingEdit.CREATE.equals(edit.getOp());
+                batch.getOperations().add(new NoteBatchRequest.Operation(
+                        edit.getOp(), noteId, create ? null : noteId, note.getTitle(), note.getContent()));
+            }
+            sentEdits.put(noteId, edit);
+        }
+        if (sentEdits.isEmpty()) {
+            return 0;
+        }
+
+        Response<NoteBatchResponse> response =
+                RetrofitClient.getInstance().getApiService().syncBatch(batch).execute();
+        if (response.code() == 400) {
+            // Invalid edits are normally reported one by one in the results. A batch rejected as a
+            // whole is resent one edit at a time, so only an edit rejected on its own is dropped.
+            if (sentEdits.size() > 1) {
+                Log.w(TAG, "flushPendingEditsSync: Server rejected a batch of " + sentEdits.size() + " edits, sending them one by one");
+                int sent = 0;
+                for (int i = 0; i < sentEdits.size(); i++) {
+                    sent += flushBatch(1);
+                }
+                return sent;
+            }
+            // Retrying would fail the same way and block every later edit
+            PendingEdit rejected = sentEdits.values().iterator().next();
+            Log.e(TAG, "flushPendingEditsSync: Server rejected the edit of note " + rejected.getNoteId() + ", dropping it");
+            database.runInTransaction(() -> {
+                removeIfUnchanged(rejected);
+            });
+        } else if (!response.isSuccessful() || response.body() == null
+                || response.body().getResults() == null) {
+            throw new HttpException(response);
+        } else {
+            List<NoteBatchResponse.Result> results = response.body().getResults();
+            long start = Metrics.start();
+            database.runInTransaction(() -> applyBatchResults(results, sentEdits));
+            Metrics.recordSince("room.apply_batch", start);
+        }
+        return sentEdits.size();
+    }
+
+    private void applyBatchResults(List<NoteBatchResponse.Result> results, Map<Long, PendingEdit> sentEdits) {
+        for (NoteBatchResponse.Result result : results) {
+            PendingEdit sentEdit = sentEdits.get(result.getClientId());
+            if (sentEdit == null) {
+                continue;
+            }
+            long noteId = sentEdit.getNoteId();
+            PendingEdit current = pendingEditDao.get(noteId);
+            boolean unchanged = removeIfUnchanged(sentEdit);
+
+            if (NoteBatchResponse.STATUS_INVALID.equals(result.getStatus())) {
+                // Retrying would fail the same way; a newer edit of the note, if any, stays queued
+                Log.e(TAG, "applyBatchResults: Server rejected the " + sentEdit.getOp() + " of note " + noteId
+                        + " (" + result.getError() + "), dropping it");
+            } else if (NoteBatchResponse.STATUS_NOT_FOUND.equals(result.getStatus())) {
+                // A delete of a note the server no longer has is done. An update means the note was
+                // deleted on the server while edited here: keep the user's version as a new note.
+                if (PendingEdit.UPDATE.equals(sentEdit.getOp()) && current != null
+                        && !PendingEdit.DELETE.equals(current.getOp())
+                        && noteDao.getNoteByIdSync(noteId) != null) {
+                    Log.w(TAG, "applyBatchResults: Note " + noteId + " was deleted on the server, recreating it");
+                    pendingEditDao.put(new PendingEdit(noteId, PendingEdit.CREATE, current.getQueuedAt()));
+                }
+            } else if (PendingEdit.CREATE.equals(sentEdit.getOp())) {
+                long serverId = result.getId();
+                if (current == null) {
+                    // Deleted locally while the create was in flight
+                    queueEdit(serverId, PendingEdit.DELETE);
+                    continue;
+                }
+                // Swap the temporary id for the server one; a delta may already have fetched it
+                noteDao.deleteByIds(Collections.singletonList(serverId));
+                noteDao.changeId(noteId, serverId);
+                syncedIds.put(noteId, serverId);
+                if (unchanged) {
+                    upsertServerNotes(Collections.singletonList(result.getNote()), Collections.emptySet());
+                } else {
+                    // Edited again meanwhile, that edit is now an update of the server note
+                    pendingEditDao.remove(noteId);
+                    pendingEditDao.put(new PendingEdit(serverId, PendingEdit.UPDATE, current.getQueuedAt()));
+                }
+            } else if (PendingEdit.UPDATE.equals(sentEdit.getOp()) && unchanged) {
+                upsertServerNotes(Collections.singletonList(result.getNote()), Collections.emptySet());
+            }
+        }
+    }
+
+    private boolean removeIfUnchanged(PendingEdit sentEdit) {
+        PendingEdit current = pendingEditDao.get(sentEdit.getNoteId());
+        if (current != null && current.getQueuedAt() == sentEdit.getQueuedAt()) {
+            pendingEditDao.remove(sentEdit.getNoteId());
+            return true;
+        }
+        return false;
+    }
+
+    // First page of the server's ranked search, for accounts not fully synced to the device.
+    // Nothing is stored: the local copy of a hit is returned when there is one, so unsynced
+    // edits win, and notes deleted on the device are left out. Call from a background thread.
+    public List<com.example.notes.models.Note> searchRemoteSync(String query) throws IOException {
+        Response<List<com.example.notes.models.Note>> response = RetrofitClient.getInstance().getApiService()
+                .searchNotes(query, SEARCH_PAGE_SIZE, 0).execute();
+        if (!response.isSuccessful() || response.body() == null) {
+            throw new IOException("Error searching notes: " + response.code());
+        }
+        List<com.example.notes.models.Note> hits = response.body();
+
+        List<Long> ids = new ArrayList<>(hits.size());
+        for (com.example.notes.models.Note hit : hits) {
+            ids.add((long) hit.getId());
+        }
+        Map<Long, Note> localNotes = new HashMap<>();
+        for (Note note : noteDao.getNotesByIds(ids)) {
+            localNotes.put(note.getId(), note);
+        }
+        Set<Long> pending = getPendingNoteIds();
+        List<com.example.notes.models.Note> results = new ArrayList<>(hits.size());
+        for (com.example.notes.models.Note hit : hits) {
+            Note local = localNotes.get((long) hit.getId());
+            if (local != null) {
+                results.add(local.toModel());
+            } else if (!pending.contains((long) hit.getId())) {
+                results.add(hit);
+            }
+        }
+        return results;
+    }
+
+    // Stores a hit of searchRemoteSync that the device does not have yet, once the user opens
+    // it, so that it loads like any other note; onSaved runs on the main thread
+    public void saveSearchHit(com.example.notes.models.Note hit, Runnable onSaved) {
+        diskExecutor.execute(() -> {
+            database.runInTransaction(() -> {
+                if (noteDao.getNoteByIdSync(hit.getId()) == null) {
+                    upsertServerNotes(Collections.singletonList(hit), getPendingNoteIds());
+                }
+            });
+            mainHandler.post(onSaved);
+        });
+    }
+
+    // Ranked full-text search over the local notes; call from a background thread
+    public List<com.example.notes.models.Note> searchSync(String query) {
+        List<com.example.notes.models.Note> results = new ArrayList<>();
+        String match = buildMatchQuery(query);
+        if (match == null) {
+            return results;
+        }
+
+        List<NoteMatch> matches;
+        long start = Metrics.start();
+        try {
+            matches = noteDao.searchNotes(match);
+        } catch (Exception e) {
+            Log.e(TAG, "searchSync: Error searching notes", e);
+            return results;
+        }
+        Metrics.recordSince("room.search", start);
+        Collections.sort(matches, (a, b) -> {
+            int byScore = Double.compare(b.getScore(), a.getScore());
+            if (byScore != 0) {
+                return byScore;
+            }
+            Date first = a.note.getCreatedAt();
+            Date second = b.note.getCreatedAt();
+            return first == null || second == null ? 0 : second.compareTo(first);
+        });
+        for (NoteMatch hit : matches) {
+            results.add(hit.note.toModel());
+        }
+        return results;
+    }
+
+    // Turns free text into a prefix query where every word must match: "réu proj" -> "réu* proj*"
+    static String buildMatchQuery(String query) {
+        if (query == null) {
+            return null;
+        }
+        StringBuilder match = new StringBuilder();
+        NoteTextUtils.segment(query, query.length(), (text, start, end) -> {
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append(text, start, end).append('*');
+        });
+        return match.length() > 0 ? match.toString() : null;
+    }
+
+    // Pulls what changed on the server into Room and returns the number of local changes.
+    // Blocking, called from SyncWorker.
+    public int refreshSync() throws IOException {
+        String watermark = syncPrefs.getString(KEY_WATERMARK, null);
+        if (watermark == null) {
+            // First sync: only the newest page, NoteRemoteMediator fetches older ones as the list scrolls.
+            // Run on the mediator's executor so both never load the first page at the same time.
+            try {
+                pagingExecutor.submit(() -> {
+                    if (!hasSyncState()) {
+                        loadPageSync(null);
+                    }
+                    return null;
+                }).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("First page sync interrupted");
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof IOException
+                        ? (IOException) e.getCause() : new IOException(e.getCause());
+            }
+            return 0;
+        }
+
+        // Steady state: only fetch what changed since the stored high-water mark
+        Log.d(TAG, "refreshSync: Fetching changes since " + watermark);
+        Response<NoteDelta> response = RetrofitClient.getInstance().getApiService().getNotesSince(watermark).execute();
+        if (response.code() == 400) {
+            // The server no longer understands our watermark, start over
+            Log.w(TAG, "refreshSync: Watermark rejected, falling back to a full refresh");
+            syncPrefs.edit().remove(KEY_WATERMARK).apply();
+            return fullRefreshSync();
+        }
+        if (!response.isSuccessful() || response.body() == null) {
+            throw new HttpException(response);
+        }
+        if (isAlreadyApplied(response)) {
+            Log.d(TAG, "refreshSync: Not modified since " + watermark);
+            return 0;
+        }
+        NoteDelta delta = response.body();
+        int changed = applyDelta(delta);
+        commitSyncState(delta.getWatermark(), false, response.headers().get(ETAG_HEADER));
+        Log.d(TAG, "refreshSync: " + changed + " local changes, watermark " + delta.getWatermark());
+        return changed;
+    }
+
+    // After the server rejected our watermark: download the whole list once and reconcile.
+    // The list is parsed as it arrives and written in chunks, each in its own transaction.
+    private int fullRefreshSync() throws IOException {
+        Log.d(TAG, "fullRefreshSync: Fetching all notes from server");
+        Response<ResponseBody> response = RetrofitClient.getInstance().getApiService().streamNotes().execute();
+        if (!response.isSuccessful() || response.body() == null) {
+            throw new HttpException(response);
+        }
+        try (ResponseBody body = response.body()) {
+            if (isAlreadyApplied(response)) {
+                Log.d(TAG, "fullRefreshSync: Not modified");
+                return 0;
+            }
+            Set<Long> serverIds = new HashSet<>();
+            int[] changedCount = new int[1];
+            int total = NoteListReader.read(body, FULL_SYNC_CHUNK_SIZE, chunk ->
+                    database.runInTransaction(() -> {
+                        long start = Metrics.start();
+                        changedCount[0] += applyServerChunk(chunk, serverIds);
+                        Metrics.recordSince("room.apply_chunk", start);
+                    }));
+
+            // Whatever the server did not list no longer exists there
+            database.runInTransaction(() -> {
+                Set<Long> pending = getPendingNoteIds();
+                List<Long> removed = new ArrayList<>();
+                for (Long id : noteDao.getAllIds()) {
+                    if (!serverIds.contains(id) && !pending.contains(id)) {
+                        removed.add(id);
+                    }
+                }
+                deleteByIds(removed);
+                changedCount[0] += removed.size();
+            });
+            commitSyncState(response.headers().get(WATERMARK_HEADER), true, response.headers().get(ETAG_HEADER));
+            Log.d(TAG, "fullRefreshSync: " + total + " notes read, " + changedCount[0] + " local changes");
+            return changedCount[0];
+        }
+    }
+
+    // True when the server answered 304 and OkHttp handed back a cached body that Room already
+    // holds; the ETag of the last applied response is kept with the watermark to tell.
+    private boolean isAlreadyApplied(Response<?> response) {
+        okhttp3.Response networkResponse = response.raw().networkResponse();
+        String etag = response.headers().get(ETAG_HEADER);
+        return networkResponse != null && networkResponse.code() == HttpURLConnection.HTTP_NOT_MODIFIED
+                && etag != null && etag.equals(syncPrefs.getString(KEY_APPLIED_ETAG, null));
+    }
+
+    // Only advance the watermark once the changes are committed locally
+    private void commitSyncState(String newWatermark, boolean fullList, String etag) {
+        SharedPreferences.Editor editor = syncPrefs.edit();
+        if (newWatermark != null) {
+            editor.putString(KEY_WATERMARK, newWatermark);
+        }
+        if (etag != null) {
+            editor.putString(KEY_APPLIED_ETAG, etag);
+        } else {
+            editor.remove(KEY_APPLIED_ETAG);
+        }
+        if (fullList) {
+            editor.remove(KEY_NEXT_CURSOR).putBoolean(KEY_BACKFILL_COMPLETE, true);
+        }
+        editor.commit();
+    }
+
+    // Upserts the notes of one chunk that changed on the server and records their ids.
+    // Notes with unsent local edits are left alone, the server has not seen them yet.
+    private int applyServerChunk(List<com.example.notes.models.Note> serverNotes, Set<Long> serverIds) {
+        Set<Long> pending = getPendingNoteIds();
+        List<Long> ids = new ArrayList<>(serverNotes.size());
+        for (com.example.notes.models.Note serverNote : serverNotes) {
+            ids.add((long) serverNote.getId());
+        }
+        serverIds.addAll(ids);
+        Map<Long, Note> localNotes = new HashMap<>();
+        for (Note note : noteDao.getNotesByIds(ids)) {
+            localNotes.put(note.getId(), note);
+        }
+
+        List<Note> changed = new ArrayList<>();
+        for (com.example.notes.models.Note serverNote : serverNotes) {
+            Note note = Note.fromModel(serverNote);
+            if (pending.contains(note.getId())) {
+                continue;
+            }
+            Note local = localNotes.get(note.getId());
+            if (local == null || !local.hasSameContent(note)) {
+                // The server does not store summaries, keep the one generated locally
+                if (note.getSummary() == null && local != null) {
+                    note.setSummary(local.getSummary());
+                }
+                changed.add(note);
+            }
+        }
+        if (!changed.isEmpty()) {
+            noteDao.upsertAll(changed);
+        }
+        return changed.size();
+    }
+
+    private int applyDelta(NoteDelta delta) {
+        List<com.example.notes.models.Note> serverNotes = delta.getNotes() != null
+                ? delta.getNotes() : new ArrayList<>();
+        List<Long> removed = new ArrayList<>();
+        if (delta.getDeleted() != null) {
+            for (Integer id : delta.getDeleted()) {
+                removed.add(id.longValue());
+            }
+        }
+
+        long start = Metrics.start();
+        database.runInTransaction(() -> {
+            Set<Long> pending = getPendingNoteIds();
+            upsertServerNotes(serverNotes, pending);
+            removed.removeAll(pending);
+            deleteByIds(removed);
+        });
+        Metrics.recordSince("room.apply_delta", start);
+        return serverNotes.size() + removed.size();
+    }
+
+    private void upsertServerNotes(List<com.example.notes.models.Note> serverNotes, Set<Long> pending) {
+        List<Note> changed = new ArrayList<>(serverNotes.size());
+        for (com.example.notes.models.Note serverNote : serverNotes) {
+            if (serverNote == null || pending.contains((long) serverNote.getId())) {
+                continue;
+            }
+            Note note = Note.fromModel(serverNote);
+            // The server does not store summaries, keep the one generated locally
+            if (note.getSummary() == null) {
+                Note local = noteDao.getNoteByIdSync(note.getId());
+                if (local != null) {
+                    note.setSummary(local.getSummary());
+                }
+            }
+            changed.add(note);
+        }
+        if (!changed.isEmpty()) {
+            noteDao.upsertAll(changed);
+        }
+    }
+
+    private Set<Long> getPendingNoteIds() {
+        return new HashSet<>(pendingEditDao.getPendingNoteIds());
+    }
+
+    private void deleteByIds(List<Long> ids) {
+        for (int i = 0; i < ids.size(); i += MAX_DELETE_BATCH) {
+            noteDao.deleteByIds(ids.subList(i, Math.min(i + MAX_DELETE_BATCH, ids.size())));
+        }
+    }
+}
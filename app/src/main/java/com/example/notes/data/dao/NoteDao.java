@@ -1,8 +1,10 @@
 package com.example.notes.data.dao;
 
 import androidx.lifecycle.LiveData;
+import androidx.paging.PagingSource;
 import androidx.room.*;
 import com.example.notes.data.entity.Note;
+import com.example.notes.data.entity.NoteMatch;
 import java.util.List;
 
 @Dao
@@ -10,14 +12,37 @@ public interface NoteDao {
     @Insert
     long insert(Note note);
     
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void upsertAll(List<Note> notes);
+    
+    // Number of rows changed, 0 when the note is gone
     @Update
-    void update(Note note);
+    int update(Note note);
     
     @Delete
     void delete(Note note);
     
-    @Query("SELECT * FROM notes ORDER BY createdAt DESC")
-    LiveData<List<Note>> getAllNotes();
+    @Query("SELECT * FROM notes ORDER BY createdAt DESC, id DESC")
+    PagingSource<Integer, Note> getNotesPagingSource();
+    
+    @Query("SELECT COUNT(*) FROM notes")
+    int getNoteCount();
+    
+    @Query("SELECT id FROM notes")
+    List<Long> getAllIds();
+    
+    @Query("SELECT * FROM notes WHERE id IN (:ids)")
+    List<Note> getNotesByIds(List<Long> ids);
+    
+    @Query("DELETE FROM notes WHERE id IN (:ids)")
+    void deleteByIds(List<Long> ids);
+    
+    // Notes created offline get negative ids until the server assigns a real one
+    @Query("SELECT MIN(id) FROM notes")
+    Long getMinId();
+    
+    @Query("UPDATE notes SET id = :newId WHERE id = :oldId")
+    void changeId(long oldId, long newId);
     
     @Query("SELECT * FROM notes WHERE id = :id")
     LiveData<Note> getNoteById(long id);
@@ -25,6 +50,8 @@ public interface NoteDao {
     @Query("SELECT * FROM notes WHERE id = :id")
     Note getNoteByIdSync(long id);
     
-    @Query("SELECT * FROM notes WHERE title LIKE '%' || :query || '%' OR content LIKE '%' || :query || '%'")
-    LiveData<List<Note>> searchNotes(String query);
+    // :match is an FTS4 MATCH expression, e.g. "meet* proj*"
+    @Query("SELECT notes.*, matchinfo(notes_fts, 'pcnalx') AS matchInfo FROM notes " +
+           "JOIN notes_fts ON notes.id = notes_fts.rowid WHERE notes_fts MATCH :match")
+    List<NoteMatch> searchNotes(String match);
 } 
\ No newline at end of file
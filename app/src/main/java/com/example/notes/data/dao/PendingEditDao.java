@@ -0,0 +1,26 @@
+package com.example.notes.data.dao;
+
+import androidx.room.*;
+import com.example.notes.data.entity.PendingEdit;
+import java.util.List;
+
+@Dao
+public interface PendingEditDao {
+    @Query("SELECT * FROM pending_edits WHERE noteId = :noteId")
+    PendingEdit get(long noteId);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void put(PendingEdit edit);
+
+    @Query("SELECT * FROM pending_edits ORDER BY queuedAt LIMIT :limit")
+    List<PendingEdit> getOldest(int limit);
+
+    @Query("SELECT noteId FROM pending_edits")
+    List<Long> getPendingNoteIds();
+
+    @Query("SELECT COUNT(*) FROM pending_edits")
+    int getCount();
+
+    @Query("DELETE FROM pending_edits WHERE noteId = :noteId")
+    void remove(long noteId);
+}
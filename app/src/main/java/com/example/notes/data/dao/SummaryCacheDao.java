@@ -0,0 +1,21 @@
+package com.example.notes.data.dao;
+
+import androidx.room.*;
+import com.example.notes.data.entity.SummaryCacheEntry;
+
+@Dao
+public interface SummaryCacheDao {
+    @Query("SELECT summary FROM summary_cache WHERE contentHash = :contentHash")
+    String getSummary(String contentHash);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void put(SummaryCacheEntry entry);
+
+    @Query("UPDATE summary_cache SET lastAccessed = :lastAccessed WHERE contentHash = :contentHash")
+    void touch(String contentHash, long lastAccessed);
+
+    // Keeps only the most recently used entries
+    @Query("DELETE FROM summary_cache WHERE contentHash NOT IN "
+            + "(SELECT contentHash FROM summary_cache ORDER BY lastAccessed DESC LIMIT :maxEntries)")
+    int trim(int maxEntries);
+}
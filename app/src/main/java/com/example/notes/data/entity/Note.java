@@ -3,6 +3,7 @@ package com.example.notes.data.entity;
 import androidx.room.Entity;
 import androidx.room.PrimaryKey;
 import java.util.Date;
+import java.util.Objects;
 
 @Entity(tableName = "notes")
 public class Note {
@@ -46,4 +47,27 @@ public class Note {
     
     public String getAudioFilePath() { return audioFilePath; }
     public void setAudioFilePath(String audioFilePath) { this.audioFilePath = audioFilePath; }
+    
+    // Conversion from/to the API model
+    public static Note fromModel(com.example.notes.models.Note model) {
+        Note note = new Note(model.getTitle(), model.getContent(), model.getSummary(), null);
+        note.setId(model.getId());
+        note.setCreatedAt(model.getCreatedAt());
+        note.setUpdatedAt(model.getUpdatedAt());
+        return note;
+    }
+    
+    public com.example.notes.models.Note toModel() {
+        com.example.notes.models.Note model = new com.example.notes.models.Note(title, content, summary);
+        model.setId((int) id);
+        model.setCreatedAt(createdAt);
+        model.setUpdatedAt(updatedAt);
+        return model;
+    }
+    
+    public boolean hasSameContent(Note other) {
+        return Objects.equals(title, other.title)
+                && Objects.equals(content, other.content)
+                && Objects.equals(updatedAt, other.updatedAt);
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.example.notes.data.entity;
+
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+// Full-text index mirrored from the notes table; Room keeps it in sync with triggers.
+// unicode61 folds case and strips diacritics, so "ete" also matches "été".
+@Fts4(contentEntity = Note.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61, prefix = {2, 3})
+@Entity(tableName = "notes_fts")
+public class NoteFts {
+    private String title;
+    private String content;
+    private String summary;
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    
+    public String getContent() { return content; }
+    public void setContent(String content) { this.content = content; }
+    
+    public String getSummary() { return summary; }
+    public void setSummary(String summary) { this.summary = summary; }
+}
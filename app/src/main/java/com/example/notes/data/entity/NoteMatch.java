@@ -0,0 +1,64 @@
+package com.example.notes.data.entity;
+
+import androidx.room.Embedded;
+import androidx.room.Ignore;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+// A full-text search hit with the raw matchinfo(notes_fts, 'pcnalx') blob used for ranking
+public class NoteMatch {
+    // Okapi BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Column weights, in notes_fts column order: title, content, summary
+    private static final double[] COLUMN_WEIGHTS = {3.0, 1.0, 0.5};
+
+    @Embedded
+    public Note note;
+
+    public byte[] matchInfo;
+
+    @Ignore
+    private double score = Double.NaN;
+
+    public double getScore() {
+        if (Double.isNaN(score)) {
+            score = computeBm25();
+        }
+        return score;
+    }
+
+    private double computeBm25() {
+        if (matchInfo == null) {
+            return 0;
+        }
+        IntBuffer info = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder()).asIntBuffer();
+        int phraseCount = info.get(0);
+        int columnCount = info.get(1);
+        int rowCount = info.get(2);
+        int avgLengthOffset = 3;
+        int lengthOffset = avgLengthOffset + columnCount;
+        int hitsOffset = lengthOffset + columnCount;
+
+        double total = 0;
+        for (int phrase = 0; phrase < phraseCount; phrase++) {
+            for (int column = 0; column < columnCount && column < COLUMN_WEIGHTS.length; column++) {
+                int hits = hitsOffset + 3 * (phrase * columnCount + column);
+                int hitsInRow = info.get(hits);
+                if (hitsInRow == 0) {
+                    continue;
+                }
+                int rowsWithHits = info.get(hits + 2);
+                double idf = Math.log((rowCount - rowsWithHits + 0.5) / (rowsWithHits + 0.5));
+                // Terms present in most rows would get a negative idf, keep them slightly positive
+                idf = Math.max(idf, 0.01);
+                double avgLength = Math.max(1, info.get(avgLengthOffset + column));
+                double length = info.get(lengthOffset + column);
+                double tf = hitsInRow * (K1 + 1) / (hitsInRow + K1 * (1 - B + B * length / avgLength));
+                total += COLUMN_WEIGHTS[column] * idf * tf;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.notes.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+// A local edit not yet sent to the server. There is at most one per note: later edits are
+// folded into it, and the title and content are read from the notes table when it is sent.
+@Entity(tableName = "pending_edits")
+public class PendingEdit {
+    public static final String CREATE = "create";
+    public static final String UPDATE = "update";
+    public static final String DELETE = "delete";
+
+    @PrimaryKey
+    private long noteId;
+
+    @NonNull
+    private String op;
+    private long queuedAt;
+
+    public PendingEdit(long noteId, @NonNull String op, long queuedAt) {
+        this.noteId = noteId;
+        this.op = op;
+        this.queuedAt = queuedAt;
+    }
+
+    // Getters and Setters
+    public long getNoteId() { return noteId; }
+    public void setNoteId(long noteId) { this.noteId = noteId; }
+
+    @NonNull
+    public String getOp() { return op; }
+    public void setOp(@NonNull String op) { this.op = op; }
+
+    public long getQueuedAt() { return queuedAt; }
+    public void setQueuedAt(long queuedAt) { this.queuedAt = queuedAt; }
+}
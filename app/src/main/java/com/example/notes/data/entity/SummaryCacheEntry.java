@@ -0,0 +1,33 @@
+package com.example.notes.data.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+@Entity(tableName = "summary_cache", indices = {@Index("lastAccessed")})
+public class SummaryCacheEntry {
+    @PrimaryKey
+    @NonNull
+    private String contentHash;
+
+    private String summary;
+    private long lastAccessed;
+
+    public SummaryCacheEntry(@NonNull String contentHash, String summary, long lastAccessed) {
+        this.contentHash = contentHash;
+        this.summary = summary;
+        this.lastAccessed = lastAccessed;
+    }
+
+    // Getters and Setters
+    @NonNull
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(@NonNull String contentHash) { this.contentHash = contentHash; }
+
+    public String getSummary() { return summary; }
+    public void setSummary(String summary) { this.summary = summary; }
+
+    public long getLastAccessed() { return lastAccessed; }
+    public void setLastAccessed(long lastAccessed) { this.lastAccessed = lastAccessed; }
+}
@@ -0,0 +1,104 @@
+package com.example.notes.metrics;
+
+import android.content.Context;
+import android.os.Build;
+import com.example.notes.BuildConfig;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide latency histograms, keyed by name: "http.GET /api/notes.ttfb", "room.search",
+ * "summary.generate", "list.bind"... Recording is cheap enough for hot paths like list binding.
+ *
+ * Usage: long start = Metrics.start(); ...; Metrics.recordSince("room.search", start);
+ */
+public final class Metrics {
+    private static final String DUMP_DIR = "metrics";
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    public static void recordSince(String name, long startNanos) {
+        recordNanos(name, System.nanoTime() - startNanos);
+    }
+
+    public static void recordNanos(String name, long nanos) {
+        histogram(name).recordNanos(nanos);
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = HISTOGRAMS.get(name);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = HISTOGRAMS.putIfAbsent(name, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+
+    public static void reset() {
+        for (LatencyHistogram histogram : HISTOGRAMS.values()) {
+            histogram.reset();
+        }
+    }
+
+    // One line per histogram, times in milliseconds
+    public static String report() {
+        List<String> names = new ArrayList<>(HISTOGRAMS.keySet());
+        Collections.sort(names);
+        StringBuilder report = new StringBuilder(String.format(Locale.US,
+                "%-40s %7s %9s %9s %9s %9s%n", "metric", "count", "p50", "p90", "p99", "max"));
+        for (String name : names) {
+            LatencyHistogram histogram = HISTOGRAMS.get(name);
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            report.append(String.format(Locale.US, "%-40s %7d %9.1f %9.1f %9.1f %9.1f%n",
+                    name, histogram.getCount(),
+                    histogram.getPercentileMicros(50) / 1000.0,
+                    histogram.getPercentileMicros(90) / 1000.0,
+                    histogram.getPercentileMicros(99) / 1000.0,
+                    histogram.getMaxMicros() / 1000.0));
+        }
+        return report.toString();
+    }
+
+    // Writes the report with the app version and device, so dumps from different releases
+    // can be compared; returns the file, under the app's external files (adb pull-able)
+    public static File dumpToFile(Context context) throws IOException {
+        File root = context.getExternalFilesDir(null);
+        File dir = new File(root != null ? root : context.getFilesDir(), DUMP_DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        Date now = new Date();
+        File file = new File(dir, "metrics-" + new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(now) + ".txt");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write("version " + BuildConfig.VERSION_NAME + " (" + BuildConfig.VERSION_CODE + ")"
+                    + (BuildConfig.DEBUG ? " debug" : "") + "\n");
+            writer.write("device " + Build.MANUFACTURER + " " + Build.MODEL + ", API " + Build.VERSION.SDK_INT + "\n");
+            writer.write("date " + now + "\n\n");
+            writer.write(report());
+        }
+        return file;
+    }
+}
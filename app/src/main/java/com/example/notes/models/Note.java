@@ -1,5 +1,6 @@
 package com.example.notes.models;
 
+import com.example.notes.utils.SearchNormalizer;
 import com.google.gson.annotations.SerializedName;
 import java.util.Date;
 
@@ -19,12 +20,16 @@ public class Note {
     @SerializedName("summary")
     private String summary;
 
-    @SerializedName("createdAt")
+    @SerializedName(value = "created_at", alternate = {"createdAt"})
     private Date createdAt;
 
-    @SerializedName("updatedAt")
+    @SerializedName(value = "updated_at", alternate = {"updatedAt"})
     private Date updatedAt;
 
+    // Normalized title/content/summary for in-memory search, computed on first use.
+    // transient keeps it out of the JSON sent to the server.
+    private transient String searchKey;
+
     public Note() {
         this.createdAt = new Date();
         this.updatedAt = new Date();
@@ -52,6 +57,7 @@ public class Note {
 
     public void setTitle(String title) {
         this.title = title;
+        this.searchKey = null;
     }
 
     public String getContent() {
@@ -60,6 +66,7 @@ public class Note {
 
     public void setContent(String content) {
         this.content = content;
+        this.searchKey = null;
     }
 
     public String getSummary() {
@@ -68,6 +75,16 @@ public class Note {
 
     public void setSummary(String summary) {
         this.summary = summary;
+        this.searchKey = null;
+    }
+
+    public String getSearchKey() {
+        String key = searchKey;
+        if (key == null) {
+            key = SearchNormalizer.buildSearchKey(title, content, summary);
+            searchKey = key;
+        }
+        return key;
     }
 
     public Date getCreatedAt() {
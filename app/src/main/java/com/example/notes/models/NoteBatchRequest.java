@@ -0,0 +1,64 @@
+package com.example.notes.models;
+
+import com.google.gson.annotations.SerializedName;
+import java.util.ArrayList;
+import java.util.List;
+
+public class NoteBatchRequest {
+    @SerializedName("operations")
+    private List<Operation> operations = new ArrayList<>();
+
+    public static class Operation {
+        @SerializedName("op")
+        private String op;
+
+        // Local id, echoed back so created notes can be matched with their server id
+        @SerializedName("client_id")
+        private long clientId;
+
+        @SerializedName("id")
+        private Long id;
+
+        @SerializedName("title")
+        private String title;
+
+        @SerializedName("content")
+        private String content;
+
+        public Operation(String op, long clientId, Long id, String title, String content) {
+            this.op = op;
+            this.clientId = clientId;
+            this.id = id;
+            this.title = title;
+            this.content = content;
+        }
+
+        public String getOp() {
+            return op;
+        }
+
+        public long getClientId() {
+            return clientId;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getContent() {
+            return content;
+        }
+    }
+
+    public List<Operation> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(List<Operation> operations) {
+        this.operations = operations;
+    }
+}
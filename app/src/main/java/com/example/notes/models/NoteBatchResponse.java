@@ -0,0 +1,67 @@
+package com.example.notes.models;
+
+import com.google.gson.annotations.SerializedName;
+import java.util.List;
+
+public class NoteBatchResponse {
+    public static final String STATUS_OK = "ok";
+    public static final String STATUS_NOT_FOUND = "not_found";
+    public static final String STATUS_INVALID = "invalid";
+
+    @SerializedName("results")
+    private List<Result> results;
+
+    public static class Result {
+        @SerializedName("op")
+        private String op;
+
+        @SerializedName("client_id")
+        private long clientId;
+
+        @SerializedName("id")
+        private long id;
+
+        @SerializedName("status")
+        private String status;
+
+        // The saved note for creates and updates
+        @SerializedName("note")
+        private Note note;
+
+        // Why the server rejected the operation, with STATUS_INVALID
+        @SerializedName("error")
+        private String error;
+
+        public String getOp() {
+            return op;
+        }
+
+        public long getClientId() {
+            return clientId;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public Note getNote() {
+            return note;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    public List<Result> getResults() {
+        return results;
+    }
+
+    public void setResults(List<Result> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.notes.models;
+
+import com.google.gson.annotations.SerializedName;
+import java.util.List;
+
+public class NoteDelta {
+    @SerializedName("notes")
+    private List<Note> notes;
+
+    @SerializedName("deleted")
+    private List<Integer> deleted;
+
+    @SerializedName("watermark")
+    private String watermark;
+
+    public List<Note> getNotes() {
+        return notes;
+    }
+
+    public void setNotes(List<Note> notes) {
+        this.notes = notes;
+    }
+
+    public List<Integer> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<Integer> deleted) {
+        this.deleted = deleted;
+    }
+
+    public String getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(String watermark) {
+        this.watermark = watermark;
+    }
+}
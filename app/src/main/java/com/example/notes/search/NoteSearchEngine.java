@@ -0,0 +1,181 @@
+package com.example.notes.search;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import com.example.notes.data.NoteRepository;
+import com.example.notes.models.Note;
+import com.example.notes.utils.NoteTextUtils;
+import com.example.notes.utils.SearchNormalizer;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Search-as-you-type over the notes list.
+ *
+ * Keystrokes are debounced, queries run on a background thread and superseded queries are
+ * cancelled. When the new query only extends the previous one ("pro" -> "proj") the previous
+ * results are refined in memory instead of querying the full-text index again.
+ *
+ * Until every note has been synced to the device the server does the search, so notes that
+ * only exist there are found too; offline it falls back to the local notes.
+ */
+public class NoteSearchEngine {
+    private static final String TAG = "NoteSearchEngine";
+    private static final long DEBOUNCE_MS = 150;
+
+    public interface Listener {
+        void onResults(String query, List<Note> results);
+    }
+
+    private final NoteRepository repository;
+    private final Listener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    // Written on the main thread, read by the search thread to drop superseded work
+    private volatile int generation = 0;
+    private Runnable pendingSearch;
+    private Future<?> runningSearch;
+    // Set by release, the executor then refuses work
+    private boolean released;
+
+    // Last completed search, only touched on the search thread
+    private String lastQuery;
+    private List<Note> lastResults;
+
+    public NoteSearchEngine(NoteRepository repository, Listener listener) {
+        this.repository = repository;
+        this.listener = listener;
+    }
+
+    // Call on the main thread for every keystroke
+    public void setQuery(String query) {
+        if (released) {
+            return;
+        }
+        int searchGeneration = ++generation;
+        if (pendingSearch != null) {
+            mainHandler.removeCallbacks(pendingSearch);
+        }
+        if (runningSearch != null) {
+            runningSearch.cancel(false);
+        }
+        if (query == null || query.trim().isEmpty()) {
+            pendingSearch = null;
+            return;
+        }
+
+        long requestedAt = SystemClock.elapsedRealtime();
+        pendingSearch = () -> runningSearch = executor.submit(() -> search(query, searchGeneration, requestedAt));
+        mainHandler.postDelayed(pendingSearch, DEBOUNCE_MS);
+    }
+
+    // The notes changed, cached results can no longer be refined
+    public void invalidate() {
+        if (released) {
+            return;
+        }
+        executor.execute(() -> {
+            lastQuery = null;
+            lastResults = null;
+        });
+    }
+
+    // Call on the main thread when the screen goes away; drops pending and running searches
+    public void release() {
+        released = true;
+        generation++;
+        if (pendingSearch != null) {
+            mainHandler.removeCallbacks(pendingSearch);
+        }
+        executor.shutdownNow();
+    }
+
+    private void search(String query, int searchGeneration, long requestedAt) {
+        if (searchGeneration != generation) {
+            return;
+        }
+
+        String normalizedQuery = SearchNormalizer.normalize(query);
+        List<Note> results;
+        boolean refined = lastQuery != null && normalizedQuery.startsWith(lastQuery);
+        boolean remote = false;
+        if (refined) {
+            // Every word of the new query extends a word of the old one, so its matches
+            // are a subset of the previous results
+            List<String> tokens = NoteTextUtils.words(normalizedQuery);
+            results = new ArrayList<>();
+            for (Note note : lastResults) {
+                if (searchGeneration != generation) {
+                    return;
+                }
+                if (matches(note, tokens)) {
+                    results.add(note);
+                }
+            }
+        } else if (repository.hasAllNotesLocally()) {
+            results = repository.searchSync(query);
+        } else {
+            List<Note> remoteResults = searchRemote(query);
+            remote = remoteResults != null;
+            results = remote ? remoteResults : repository.searchSync(query);
+        }
+
+        // Server results are only the best page, a longer query may match notes outside it
+        lastQuery = remote ? null : normalizedQuery;
+        lastResults = results;
+        if (searchGeneration != generation) {
+            return;
+        }
+
+        Log.d(TAG, "search: \"" + query + "\" -> " + results.size() + " notes in "
+                + (SystemClock.elapsedRealtime() - requestedAt - DEBOUNCE_MS) + " ms"
+                + (refined ? " (refined)" : remote ? " (server)" : ""));
+        mainHandler.post(() -> {
+            if (searchGeneration == generation) {
+                listener.onResults(query, results);
+            }
+        });
+    }
+
+    // Server hits followed by local matches it does not know yet (notes created offline),
+    // null when the server cannot be reached
+    private List<Note> searchRemote(String query) {
+        List<Note> results;
+        try {
+            results = new ArrayList<>(repository.searchRemoteSync(query));
+        } catch (IOException e) {
+            Log.w(TAG, "searchRemote: Falling back to local search", e);
+            return null;
+        }
+        Set<Integer> ids = new HashSet<>();
+        for (Note note : results) {
+            ids.add(note.getId());
+        }
+        for (Note note : repository.searchSync(query)) {
+            if (ids.add(note.getId())) {
+                results.add(note);
+            }
+        }
+        return results;
+    }
+
+    // Same semantics as the full-text query: every word must prefix a word of the note
+    static boolean matches(Note note, List<String> tokens) {
+        String key = note.getSearchKey();
+        for (String token : tokens) {
+            if (!SearchNormalizer.containsWordPrefix(key, token)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
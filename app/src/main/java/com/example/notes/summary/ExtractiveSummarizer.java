@@ -0,0 +1,162 @@
+package com.example.notes.summary;
+
+import com.example.notes.utils.NoteTextUtils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Extractive summarizer: keeps the sentences that carry the most distinctive words of the note.
+ *
+ * Every word is weighted by its frequency in the note times its inverse sentence frequency
+ * (TF-IDF with sentences as documents), and a sentence scores the sum of its distinct words
+ * normalized by its length. The note is tokenized once, so the cost is linear in its size, and
+ * only the first MAX_INPUT_CHARS are read.
+ */
+public class ExtractiveSummarizer implements Summarizer {
+    private static final int SHORT_TEXT_CHARS = 50;
+    private static final int MAX_INPUT_CHARS = 20 * 1024;
+    // Dictations often have no punctuation at all, cut them into pseudo-sentences
+    private static final int MAX_SENTENCE_WORDS = 25;
+    private static final int MAX_SUMMARY_SENTENCES = 3;
+    private static final int MAX_SUMMARY_CHARS = 400;
+    // Notes usually start with their topic
+    private static final double LEAD_SENTENCE_BOOST = 1.25;
+
+    private static class Sentence {
+        final int index;
+        final int start;
+        int end;
+        final List<String> terms = new ArrayList<>();
+        double score;
+
+        Sentence(int index, int start) {
+            this.index = index;
+            this.start = start;
+        }
+    }
+
+    private static class TermStats {
+        int count;
+        int sentenceCount;
+        int lastSentence = -1;
+    }
+
+    @Override
+    public String getName() {
+        return "extractive-1";
+    }
+
+    @Override
+    public String summarize(String content, String language) {
+        if (content == null || content.isEmpty()) {
+            return "";
+        }
+        if (content.length() <= SHORT_TEXT_CHARS) {
+            return content;
+        }
+
+        Map<String, TermStats> termStats = new HashMap<>();
+        List<Sentence> sentences = segment(content, Math.min(content.length(), MAX_INPUT_CHARS), termStats);
+        if (sentences.size() <= 1) {
+            return content.length() <= MAX_SUMMARY_CHARS ? content : truncate(content);
+        }
+
+        int sentenceCount = sentences.size();
+        for (Sentence sentence : sentences) {
+            if (sentence.terms.isEmpty()) {
+                continue;
+            }
+            double score = 0;
+            for (String term : sentence.terms) {
+                TermStats stats = termStats.get(term);
+                score += stats.count * Math.log(1.0 + (double) sentenceCount / stats.sentenceCount);
+            }
+            sentence.score = score / Math.sqrt(sentence.terms.size());
+        }
+        sentences.get(0).score *= LEAD_SENTENCE_BOOST;
+
+        int summarySize = Math.min(MAX_SUMMARY_SENTENCES, Math.max(1, (sentenceCount + 4) / 5));
+        Sentence[] ranked = sentences.toArray(new Sentence[0]);
+        Arrays.sort(ranked, (a, b) -> a.score != b.score
+                ? Double.compare(b.score, a.score)
+                : Integer.compare(a.index, b.index));
+
+        // Keep the best sentences but give them back in reading order
+        Sentence[] selected = Arrays.copyOf(ranked, summarySize);
+        Arrays.sort(selected, (a, b) -> Integer.compare(a.index, b.index));
+
+        StringBuilder summary = new StringBuilder();
+        for (Sentence sentence : selected) {
+            String text = NoteTextUtils.collapseWhitespace(content.substring(sentence.start, sentence.end));
+            if (summary.length() > 0 && summary.length() + text.length() > MAX_SUMMARY_CHARS) {
+                break;
+            }
+            if (summary.length() > 0) {
+                summary.append(' ');
+            }
+            summary.append(text);
+        }
+        return summary.length() <= MAX_SUMMARY_CHARS ? summary.toString() : truncate(summary.toString());
+    }
+
+    // Sentences as found by NoteTextUtils.segment, plus a cut every MAX_SENTENCE_WORDS words,
+    // collecting the distinct terms of each sentence along the way
+    private static List<Sentence> segment(String content, int length, Map<String, TermStats> termStats) {
+        List<Sentence> sentences = new ArrayList<>();
+        NoteTextUtils.segment(content, length, new NoteTextUtils.WordVisitor() {
+            private Sentence current;
+            private int sentenceStart;
+            private int wordCount;
+
+            @Override
+            public void onWord(CharSequence text, int start, int end) {
+                if (current == null) {
+                    current = new Sentence(sentences.size(), sentenceStart);
+                }
+                if (end - start > 1) {
+                    addTerm(current, NoteTextUtils.lowercase(text, start, end), termStats);
+                }
+                if (++wordCount >= MAX_SENTENCE_WORDS) {
+                    onSentenceEnd(end);
+                }
+            }
+
+            @Override
+            public void onSentenceEnd(int end) {
+                if (current != null) {
+                    current.end = end;
+                    sentences.add(current);
+                    current = null;
+                }
+                sentenceStart = end;
+                wordCount = 0;
+            }
+        });
+        return sentences;
+    }
+
+    private static void addTerm(Sentence sentence, String word, Map<String, TermStats> termStats) {
+        if (LanguageDetector.isStopword(word)) {
+            return;
+        }
+        TermStats stats = termStats.get(word);
+        if (stats == null) {
+            stats = new TermStats();
+            termStats.put(word, stats);
+        }
+        stats.count++;
+        if (stats.lastSentence != sentence.index) {
+            stats.lastSentence = sentence.index;
+            stats.sentenceCount++;
+            sentence.terms.add(word);
+        }
+    }
+
+    private static String truncate(String text) {
+        int end = text.lastIndexOf(' ', MAX_SUMMARY_CHARS);
+        return text.substring(0, end > 0 ? end : MAX_SUMMARY_CHARS) + "…";
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.notes.summary;
+
+import com.example.notes.utils.NoteTextUtils;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Guesses whether a note is French or English from accented letters and common words.
+ *
+ * The text is scanned once without lowercasing or splitting it, and only the beginning of
+ * very long notes is looked at. Stateless and safe to share between threads.
+ *
+ * Words are runs of letters and digits, so "c'est" counts as "c" and "est". The detectLanguage
+ * method this replaced stripped apostrophes, digits and letters outside the French alphabet and
+ * glued the rest together ("c'est" as "cest", "2le" as "le"); LanguageDetectorTest lists where
+ * the two disagree.
+ */
+public final class LanguageDetector {
+    public static final String FRENCH = "fr";
+    public static final String ENGLISH = "en";
+
+    // The first few pages say as much about the language as the whole note
+    private static final int MAX_SAMPLE_CHARS = 8 * 1024;
+    private static final int MAX_STOPWORD_LENGTH = 8;
+
+    private static final Set<String> FRENCH_WORDS = new HashSet<>(Arrays.asList(
+            "le", "la", "les", "un", "une", "des", "et", "est", "dans", "pour", "avec", "sans", "sur",
+            "sous", "par", "que", "qui", "quoi", "où", "quand", "comment", "pourquoi"));
+    private static final Set<String> ENGLISH_WORDS = new HashSet<>(Arrays.asList(
+            "the", "a", "an", "and", "is", "in", "for", "with", "without", "on", "under", "by", "that",
+            "which", "what", "where", "when", "how", "why"));
+
+    private LanguageDetector() {
+    }
+
+    public static String detect(CharSequence text) {
+        if (text == null || text.length() == 0) return FRENCH;
+
+        // [0] = français, [1] = anglais
+        int[] scores = new int[2];
+        NoteTextUtils.segment(text, MAX_SAMPLE_CHARS, (source, start, end) -> {
+            for (int i = start; i < end; i++) {
+                if (isFrenchLetter(Character.toLowerCase(source.charAt(i)))) {
+                    scores[0] += 2; // Les caractères spéciaux comptent double
+                }
+            }
+            // Longer words cannot be stopwords, no need to build a String for them
+            int length = end - start;
+            if (length > 1 && length <= MAX_STOPWORD_LENGTH) {
+                String word = NoteTextUtils.lowercase(source, start, end);
+                if (FRENCH_WORDS.contains(word)) {
+                    scores[0]++;
+                } else if (ENGLISH_WORDS.contains(word)) {
+                    scores[1]++;
+                }
+            }
+        });
+
+        // Biais vers le français dès qu'un indice est présent
+        int frenchScore = scores[0] > 0 ? scores[0] + 5 : 0;
+        return frenchScore >= scores[1] ? FRENCH : ENGLISH;
+    }
+
+    public static boolean isStopword(String lowercaseWord) {
+        return FRENCH_WORDS.contains(lowercaseWord) || ENGLISH_WORDS.contains(lowercaseWord);
+    }
+
+    private static boolean isFrenchLetter(char c) {
+        switch (c) {
+            case 'é': case 'è': case 'ê': case 'ë':
+            case 'à': case 'â': case 'ç': case 'î': case 'ï':
+            case 'ô': case 'ö': case 'û': case 'ü': case 'ù':
+                return true;
+            default:
+                return false;
+        }
+    }
+}
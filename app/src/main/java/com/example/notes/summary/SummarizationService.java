@@ -0,0 +1,156 @@
+package com.example.notes.summary;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import com.example.notes.data.AppDatabase;
+import com.example.notes.metrics.Metrics;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates note summaries on a small bounded worker pool.
+ *
+ * Results are delivered on the main thread unless the job was cancelled first, so callers
+ * can drop a summary that no longer matches what the user is typing.
+ */
+public class SummarizationService {
+    private static final String TAG = "SummarizationService";
+    // Unbounded cache used by earlier versions
+    private static final String LEGACY_CACHE_PREFS_NAME = "NoteSummaries";
+    private static final int MAX_WORKERS = 2;
+    private static final int MAX_QUEUED_JOBS = 4;
+
+    private static SummarizationService instance;
+    private final SummaryCache cache;
+    private final Summarizer summarizer = new ExtractiveSummarizer();
+    private final ThreadPoolExecutor executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public interface Callback {
+        void onSummaryGenerated(String summary);
+        void onError(String errorMessage);
+    }
+
+    public static class Job {
+        private volatile boolean cancelled;
+        private Future<?> future;
+
+        public void cancel() {
+            cancelled = true;
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private SummarizationService(Context context) {
+        cache = new SummaryCache(AppDatabase.getInstance(context).summaryCacheDao());
+        executor = new ThreadPoolExecutor(MAX_WORKERS, MAX_WORKERS, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED_JOBS), runnable -> {
+                    Thread thread = new Thread(runnable, "summarizer");
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        executor.execute(() -> context.deleteSharedPreferences(LEGACY_CACHE_PREFS_NAME));
+    }
+
+    public static synchronized SummarizationService getInstance(Context context) {
+        if (instance == null) {
+            instance = new SummarizationService(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    public Job summarize(String content, Callback callback) {
+        Job job = new Job();
+        if (content == null || content.trim().isEmpty()) {
+            callback.onSummaryGenerated("");
+            return job;
+        }
+
+        try {
+            job.future = executor.submit(task(job, content, callback));
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "summarize: Too many pending summaries", e);
+            callback.onError("Trop de résumés en cours, veuillez réessayer");
+        }
+        return job;
+    }
+
+    // For a note being saved: cannot be cancelled, and when the pool is full the summary is
+    // computed on a thread of its own rather than refused
+    public void summarizeForSave(String content, Callback callback) {
+        if (content == null || content.trim().isEmpty()) {
+            callback.onSummaryGenerated("");
+            return;
+        }
+
+        Runnable task = task(new Job(), content, callback);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "summarizeForSave: Pool full, summarizing on a dedicated thread");
+            Thread thread = new Thread(task, "summarizer-save");
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.start();
+        }
+    }
+
+    private Runnable task(Job job, String content, Callback callback) {
+        return () -> {
+            try {
+                long start = Metrics.start();
+                String summary = summarizeSync(content);
+                long elapsed = System.nanoTime() - start;
+                Metrics.recordNanos("summary.total", elapsed);
+                Log.d(TAG, "summarize: " + content.length() + " chars in "
+                        + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms, cache " + cache.getStats());
+                deliver(job, () -> callback.onSummaryGenerated(summary));
+            } catch (Exception e) {
+                Log.e(TAG, "summarize: Error generating summary", e);
+                deliver(job, () -> callback.onError("Erreur lors de la génération du résumé"));
+            }
+        };
+    }
+
+    private void deliver(Job job, Runnable result) {
+        if (job.isCancelled()) {
+            return;
+        }
+        mainHandler.post(() -> {
+            if (!job.isCancelled()) {
+                result.run();
+            }
+        });
+    }
+
+    // Runs on a worker thread
+    String summarizeSync(String content) {
+        String trimmedContent = content.trim();
+        String detectedLanguage = LanguageDetector.detect(trimmedContent);
+        String cacheKey = SummaryCache.keyFor(summarizer.getName() + "\n" + detectedLanguage + "\n" + trimmedContent);
+
+        // Check cache
+        String cachedSummary = cache.get(cacheKey);
+        if (cachedSummary != null) {
+            return cachedSummary;
+        }
+
+        // Summaries are always computed on the device
+        long start = Metrics.start();
+        String summary = summarizer.summarize(trimmedContent, detectedLanguage);
+        Metrics.recordSince("summary.generate", start);
+        cache.put(cacheKey, summary);
+        return summary;
+    }
+}
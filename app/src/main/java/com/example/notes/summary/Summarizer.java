@@ -0,0 +1,12 @@
+package com.example.notes.summary;
+
+/**
+ * Turns a note into a short summary. Implementations run on a worker thread and must not
+ * touch the network.
+ */
+public interface Summarizer {
+    // Identifies the algorithm and its version, summaries cached by another one are ignored
+    String getName();
+
+    String summarize(String content, String language);
+}
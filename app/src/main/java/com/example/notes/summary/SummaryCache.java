@@ -0,0 +1,107 @@
+package com.example.notes.summary;
+
+import android.util.Log;
+import android.util.LruCache;
+import com.example.notes.data.dao.SummaryCacheDao;
+import com.example.notes.data.entity.SummaryCacheEntry;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-tier LRU cache of generated summaries keyed by a SHA-256 hash of the note content.
+ *
+ * Recent summaries stay in memory; the summary_cache table keeps the most recently used
+ * ones across restarts. Both tiers are bounded. Call from a background thread.
+ */
+public class SummaryCache {
+    private static final String TAG = "SummaryCache";
+    private static final int MEMORY_MAX_CHARS = 128 * 1024;
+    private static final int DISK_MAX_ENTRIES = 1000;
+    // Trimming the table on every write would be wasted work
+    private static final int TRIM_INTERVAL = 50;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final SummaryCacheDao dao;
+    private final LruCache<String, String> memory = new LruCache<String, String>(MEMORY_MAX_CHARS) {
+        @Override
+        protected int sizeOf(String key, String value) {
+            return key.length() + value.length();
+        }
+    };
+    private final AtomicInteger writesSinceTrim = new AtomicInteger();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public SummaryCache(SummaryCacheDao dao) {
+        this.dao = dao;
+    }
+
+    public static String keyFor(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(content.getBytes(StandardCharsets.UTF_8));
+            char[] hex = new char[hash.length * 2];
+            for (int i = 0; i < hash.length; i++) {
+                hex[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+                hex[i * 2 + 1] = HEX[hash[i] & 0xf];
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Android release ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public String get(String key) {
+        String summary = memory.get(key);
+        if (summary != null) {
+            memoryHits.incrementAndGet();
+            return summary;
+        }
+
+        summary = dao.getSummary(key);
+        if (summary == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        diskHits.incrementAndGet();
+        dao.touch(key, System.currentTimeMillis());
+        memory.put(key, summary);
+        return summary;
+    }
+
+    public void put(String key, String summary) {
+        memory.put(key, summary);
+        dao.put(new SummaryCacheEntry(key, summary, System.currentTimeMillis()));
+        if (writesSinceTrim.incrementAndGet() >= TRIM_INTERVAL) {
+            writesSinceTrim.set(0);
+            int evicted = dao.trim(DISK_MAX_ENTRIES);
+            Log.d(TAG, "put: Evicted " + evicted + " summaries, " + getStats());
+        }
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public String getStats() {
+        long hits = memoryHits.get() + diskHits.get();
+        long total = hits + misses.get();
+        return "hits=" + hits + " (memory=" + memoryHits.get() + ", disk=" + diskHits.get() + ")"
+                + " misses=" + misses.get()
+                + " hitRate=" + (total == 0 ? 0 : hits * 100 / total) + "%";
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.notes.sync;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import com.example.notes.data.NoteRepository;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import retrofit2.HttpException;
+
+/**
+ * Sends the queued edits and pulls the server's changes into Room, off the UI.
+ *
+ * Triggers are coalesced into one unique work request, failures are retried with exponential
+ * backoff, and on a metered network only the first METERED_UPLOAD_LIMIT edits are sent: the
+ * rest waits for an unmetered network and a charger.
+ */
+public class SyncWorker extends Worker {
+    private static final String TAG = "SyncWorker";
+    private static final String SYNC_WORK = "note-sync";
+    private static final String UPLOAD_WORK = "note-upload";
+    private static final String PERIODIC_WORK = "note-sync-periodic";
+    private static final String KEY_UPLOAD_ONLY = "upload_only";
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int METERED_UPLOAD_LIMIT = 200;
+    private static final long BACKOFF_SECONDS = 30;
+    private static final long PERIOD_HOURS = 1;
+
+    // Output data, for whoever observes the work
+    public static final String KEY_SENT = "sent";
+    public static final String KEY_CHANGED = "changed";
+    public static final String KEY_FLUSH_MS = "flush_ms";
+    public static final String KEY_PULL_MS = "pull_ms";
+
+    // Requests are decided one at a time, so two triggers cannot both add a follow-up run
+    private static final Executor REQUESTS = Executors.newSingleThreadExecutor();
+
+    public SyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    // A sync as soon as the network allows. A request made while one is waiting joins it; one
+    // made while a sync runs gets a single follow-up run, since the running one may already have
+    // read the queue and the server
+    public static void requestSync(Context context) {
+        WorkManager workManager = WorkManager.getInstance(context);
+        REQUESTS.execute(() -> {
+            ExistingWorkPolicy policy = ExistingWorkPolicy.KEEP;
+            try {
+                boolean running = false;
+                for (WorkInfo workInfo : workManager.getWorkInfosForUniqueWork(SYNC_WORK).get()) {
+                    WorkInfo.State state = workInfo.getState();
+                    if (state == WorkInfo.State.ENQUEUED || state == WorkInfo.State.BLOCKED) {
+                        // A run that has not started yet will see this request's changes
+                        return;
+                    }
+                    running |= state == WorkInfo.State.RUNNING;
+                }
+                if (running) {
+                    policy = ExistingWorkPolicy.APPEND_OR_REPLACE;
+                }
+            } catch (ExecutionException e) {
+                Log.w(TAG, "requestSync: Could not read the sync state, enqueuing anyway", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(SyncWorker.class)
+                    .setConstraints(new Constraints.Builder()
+                            .setRequiredNetworkType(NetworkType.CONNECTED)
+                            .build())
+                    .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_SECONDS, TimeUnit.SECONDS)
+                    .build();
+            try {
+                // Waits until the work is stored, so the next request sees it
+                workManager.enqueueUniqueWork(SYNC_WORK, policy, request).getResult().get();
+            } catch (ExecutionException e) {
+                Log.e(TAG, "requestSync: Could not enqueue the sync", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    // The run the sync state is about: one running, else one waiting to run. Once all are
+    // finished, a failed one if any, since a follow-up only runs after its predecessor succeeded.
+    public static WorkInfo currentSync(List<WorkInfo> workInfos) {
+        WorkInfo current = null;
+        for (WorkInfo workInfo : workInfos) {
+            if (current == null || rank(workInfo.getState()) < rank(current.getState())) {
+                current = workInfo;
+            }
+        }
+        return current;
+    }
+
+    private static int rank(WorkInfo.State state) {
+        switch (state) {
+            case RUNNING:
+                return 0;
+            case ENQUEUED:
+                return 1;
+            case BLOCKED:
+                return 2;
+            case FAILED:
+            case CANCELLED:
+                return 3;
+            default:
+                return 4;
+        }
+    }
+
+    public static LiveData<List<WorkInfo>> observeSync(Context context) {
+        return WorkManager.getInstance(context).getWorkInfosForUniqueWorkLiveData(SYNC_WORK);
+    }
+
+    // Picks up changes made on other devices while the app is not opened
+    public static void schedulePeriodicSync(Context context) {
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(SyncWorker.class, PERIOD_HOURS, TimeUnit.HOURS)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .setRequiresBatteryNotLow(true)
+                        .build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(PERIODIC_WORK, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    private static void scheduleLargeUpload(Context context) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(SyncWorker.class)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.UNMETERED)
+                        .setRequiresCharging(true)
+                        .build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .setInputData(new Data.Builder().putBoolean(KEY_UPLOAD_ONLY, true).build())
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(UPLOAD_WORK, ExistingWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        NoteRepository repository = NoteRepository.getInstance(context);
+        boolean uploadOnly = getInputData().getBoolean(KEY_UPLOAD_ONLY, false);
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        int maxEdits = !uploadOnly && connectivityManager != null && connectivityManager.isActiveNetworkMetered()
+                ? METERED_UPLOAD_LIMIT : Integer.MAX_VALUE;
+
+        try {
+            long start = SystemClock.elapsedRealtime();
+            int sent = repository.flushPendingEditsSync(maxEdits);
+            long flushed = SystemClock.elapsedRealtime();
+            int changed = uploadOnly ? 0 : repository.refreshSync();
+            long pulled = SystemClock.elapsedRealtime();
+            // Edits saved while this sync was running
+            sent += repository.flushPendingEditsSync(maxEdits - sent);
+
+            if (sent >= maxEdits && repository.hasPendingEdits()) {
+                Log.d(TAG, "doWork: Deferring the remaining edits to an unmetered network");
+                scheduleLargeUpload(context);
+            }
+
+            long flushMs = flushed - start + SystemClock.elapsedRealtime() - pulled;
+            long pullMs = pulled - flushed;
+            Log.d(TAG, "doWork: Sent " + sent + " edits in " + flushMs + " ms, pulled " + changed
+                    + " changes in " + pullMs + " ms (attempt " + (getRunAttemptCount() + 1) + ")");
+            return Result.success(new Data.Builder()
+                    .putInt(KEY_SENT, sent)
+                    .putInt(KEY_CHANGED, changed)
+                    .putLong(KEY_FLUSH_MS, flushMs)
+                    .putLong(KEY_PULL_MS, pullMs)
+                    .build());
+        } catch (HttpException e) {
+            if (e.code() == 401 || e.code() == 403) {
+                // Not logged in, retrying will not help
+                Log.w(TAG, "doWork: Not authorized, giving up", e);
+                return Result.failure();
+            }
+            return retryOrFail(e);
+        } catch (IOException e) {
+            return retryOrFail(e);
+        }
+    }
+
+    private Result retryOrFail(Exception e) {
+        if (getRunAttemptCount() + 1 >= MAX_ATTEMPTS) {
+            Log.e(TAG, "doWork: Sync failed " + MAX_ATTEMPTS + " times, waiting for the next trigger", e);
+            return Result.failure();
+        }
+        Log.w(TAG, "doWork: Sync failed, retrying with backoff", e);
+        return Result.retry();
+    }
+}
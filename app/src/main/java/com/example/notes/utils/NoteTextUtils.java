@@ -0,0 +1,85 @@
+package com.example.notes.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// Text helpers shared by summarization, language detection and search. Patterns are compiled
+// once, and the segmenter walks a CharSequence reporting offsets instead of building arrays.
+public class NoteTextUtils {
+    private static final Pattern SUMMARY_PREFIX = Pattern.compile(
+            "(?i)^(voici|here is|here's|this is|aquí está|hier ist|ecco|resumen|zusammenfassung).*?:\\s*");
+    private static final Pattern TEXT_PREFIX = Pattern.compile("(?i)^(le texte|the text|el texto|der text).*?\\s");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    public interface WordVisitor {
+        // Words are maximal runs of letters and digits, text[start, end)
+        void onWord(CharSequence text, int start, int end);
+
+        // After the last word of a sentence: . ! ? followed by a space, or a line break
+        default void onSentenceEnd(int end) {
+        }
+    }
+
+    // Strips the boilerplate a language model puts around a summary ("Voici le résumé : ...")
+    public static String cleanSummary(String summary) {
+        // Supprimer les préfixes communs
+        summary = SUMMARY_PREFIX.matcher(summary).replaceFirst("");
+        summary = TEXT_PREFIX.matcher(summary).replaceFirst("");
+
+        // Supprimer les espaces multiples
+        return collapseWhitespace(summary);
+    }
+
+    public static String collapseWhitespace(String text) {
+        return WHITESPACE.matcher(text).replaceAll(" ").trim();
+    }
+
+    // Single pass over the first limit chars of text
+    public static void segment(CharSequence text, int limit, WordVisitor visitor) {
+        int length = Math.min(text.length(), limit);
+        boolean sentenceOpen = false;
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                    i++;
+                }
+                visitor.onWord(text, start, i);
+                sentenceOpen = true;
+                continue;
+            }
+
+            i++;
+            if (sentenceOpen && (c == '\n' || (isSentenceTerminator(c)
+                    && (i == length || Character.isWhitespace(text.charAt(i)))))) {
+                visitor.onSentenceEnd(i);
+                sentenceOpen = false;
+            }
+        }
+        if (sentenceOpen) {
+            visitor.onSentenceEnd(length);
+        }
+    }
+
+    public static List<String> words(CharSequence text) {
+        List<String> words = new ArrayList<>();
+        segment(text, text.length(), (source, start, end) -> words.add(source.subSequence(start, end).toString()));
+        return words;
+    }
+
+    // Lowercases text[start, end) into a String, for use as a map or set key
+    public static String lowercase(CharSequence text, int start, int end) {
+        char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            chars[i - start] = Character.toLowerCase(text.charAt(i));
+        }
+        return new String(chars);
+    }
+
+    private static boolean isSentenceTerminator(char c) {
+        return c == '.' || c == '!' || c == '?';
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.notes.utils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+// Case-folding and accent-stripping shared by in-memory search, so "ete" matches "Été"
+// the same way the unicode61 full-text tokenizer does.
+public class SearchNormalizer {
+
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        // Plain ASCII needs no decomposition, skip the Normalizer allocation
+        boolean ascii = true;
+        for (int i = 0; i < text.length() && ascii; i++) {
+            ascii = text.charAt(i) < 0x80;
+        }
+        String decomposed = ascii ? text : Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                normalized.append(c);
+            }
+        }
+        return normalized.toString().toLowerCase(Locale.ROOT);
+    }
+
+    // One precomputed string per note; fields are separated so a word never spans two of them
+    public static String buildSearchKey(String title, String content, String summary) {
+        return normalize(title) + '\n' + normalize(content) + '\n' + normalize(summary);
+    }
+
+    // True when token starts a word of the already normalized key; allocation-free
+    public static boolean containsWordPrefix(String key, String token) {
+        int index = key.indexOf(token);
+        while (index >= 0) {
+            if (index == 0 || !Character.isLetterOrDigit(key.charAt(index - 1))) {
+                return true;
+            }
+            index = key.indexOf(token, index + 1);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.notes;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.Assume;
+
+/**
+ * Small timing harness for the *Benchmark unit tests, which are skipped unless asked for:
+ *   ./gradlew testDebugUnitTest -Pbenchmark
+ * Results go to standard output (run with --info, or see the test report).
+ */
+public final class Benchmarks {
+    private static final int WARMUP_RUNS = 10;
+    private static final long WARMUP_NANOS = 500_000_000;
+    private static final int MEASURED_RUNS = 21;
+    // Short runs are timed in batches, a single one would be mostly timer noise
+    private static final long SAMPLE_NANOS = 1_000_000;
+
+    private static final String[] FRENCH = {
+            "le", "la", "les", "des", "et", "est", "dans", "pour", "avec", "sur", "que", "qui",
+            "projet", "réunion", "budget", "équipe", "client", "livraison", "planning", "idée",
+            "rappel", "médecin", "facture", "contrat", "rapport", "présentation", "demain", "semaine"};
+    private static final String[] ENGLISH = {
+            "the", "a", "and", "is", "in", "for", "with", "on", "that", "what",
+            "project", "meeting", "budget", "team", "customer", "delivery", "roadmap", "release",
+            "design", "reminder", "invoice", "contract", "report", "slides", "tomorrow", "week"};
+
+    // Results of the measured code end up here so the JIT cannot drop it
+    private static volatile int sink;
+
+    public interface Task {
+        Object run();
+    }
+
+    private Benchmarks() {
+    }
+
+    public static void assumeEnabled() {
+        Assume.assumeTrue("Benchmarks only run with -Pbenchmark", Boolean.getBoolean("notes.benchmark"));
+    }
+
+    // Median duration of one run, after warm-up runs for the JIT
+    public static long medianNanos(Task task) {
+        long runNanos = warmUp(task);
+        int batch = (int) Math.max(1, SAMPLE_NANOS / Math.max(1, runNanos));
+        long[] nanos = new long[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            for (int j = 0; j < batch; j++) {
+                consume(task.run());
+            }
+            nanos[i] = (System.nanoTime() - start) / batch;
+        }
+        Arrays.sort(nanos);
+        return nanos[MEASURED_RUNS / 2];
+    }
+
+    // Bytes allocated by this thread during one warmed-up run, -1 when the JVM cannot tell
+    public static long allocatedBytes(Task task) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        long threadId = Thread.currentThread().getId();
+        warmUp(task);
+        long before = allocations.getThreadAllocatedBytes(threadId);
+        consume(task.run());
+        return allocations.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    public static void report(String line) {
+        System.out.println(line);
+    }
+
+    public static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.1f µs", nanos / 1000.0);
+    }
+
+    // Note-like text: sentences of 6 to 20 words, French or English
+    public static String sampleText(Random random, int words, boolean french) {
+        String[] vocabulary = french ? FRENCH : ENGLISH;
+        StringBuilder text = new StringBuilder();
+        int sentenceLength = 0;
+        for (int i = 0; i < words; i++) {
+            String word = vocabulary[random.nextInt(vocabulary.length)];
+            if (sentenceLength == 0) {
+                word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+            }
+            text.append(word);
+            if (++sentenceLength >= 6 + random.nextInt(15) || i == words - 1) {
+                text.append(". ");
+                sentenceLength = 0;
+            } else {
+                text.append(' ');
+            }
+        }
+        return text.toString().trim();
+    }
+
+    // Enough runs for the JIT to compile the hot paths, however fast one run is; returns the
+    // duration of the last one
+    private static long warmUp(Task task) {
+        long deadline = System.nanoTime() + WARMUP_NANOS;
+        long last = 0;
+        for (int i = 0; i < WARMUP_RUNS || System.nanoTime() < deadline; i++) {
+            long start = System.nanoTime();
+            consume(task.run());
+            last = System.nanoTime() - start;
+        }
+        return last;
+    }
+
+    private static void consume(Object result) {
+        // Cheap whatever the result: no hashing through every element of a list
+        sink += result instanceof Collection ? ((Collection<?>) result).size() : System.identityHashCode(result);
+    }
+}
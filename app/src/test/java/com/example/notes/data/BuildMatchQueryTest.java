@@ -0,0 +1,38 @@
+package com.example.notes.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+// User input must never reach FTS4 as query syntax: only words survive, each as a prefix term
+public class BuildMatchQueryTest {
+    @Test
+    public void words_becomePrefixTerms() {
+        assertEquals("meet* proj*", NoteRepository.buildMatchQuery("meet proj"));
+    }
+
+    @Test
+    public void operatorCharacters_areDropped() {
+        assertEquals("projet* draft* x* y*", NoteRepository.buildMatchQuery("\"projet\" -draft (x) y*"));
+        assertEquals("title* réunion*", NoteRepository.buildMatchQuery("title:réunion"));
+    }
+
+    @Test
+    public void keywords_areTermsNotOperators() {
+        // FTS4 only reads OR, AND, NOT and NEAR as operators when they stand alone
+        assertEquals("a* OR* b* NEAR* 3* c*", NoteRepository.buildMatchQuery("a OR b NEAR/3 c"));
+    }
+
+    @Test
+    public void elisionsAndAccents_areSplitAndKept() {
+        assertEquals("l* été* 2024*", NoteRepository.buildMatchQuery("l'été 2024"));
+    }
+
+    @Test
+    public void queriesWithoutWords_matchNothing() {
+        assertNull(NoteRepository.buildMatchQuery(null));
+        assertNull(NoteRepository.buildMatchQuery(""));
+        assertNull(NoteRepository.buildMatchQuery("  \"*\" -- ( ) "));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.notes.data.entity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.junit.Test;
+
+// BM25 ranking from hand-built matchinfo(notes_fts, 'pcnalx') blobs: one phrase, three columns
+// (title, content, summary) in a table of 100 rows
+public class NoteMatchTest {
+    private static final int ROWS = 100;
+    private static final int[] AVERAGE_LENGTHS = {5, 50, 10};
+
+    // hits[column] = {hits in this row, hits in all rows, rows with a hit}
+    private static byte[] matchInfo(int[] lengths, int[][] hits) {
+        int columns = lengths.length;
+        ByteBuffer blob = ByteBuffer.allocate(4 * (3 + 2 * columns + 3 * columns)).order(ByteOrder.nativeOrder());
+        blob.putInt(1).putInt(columns).putInt(ROWS);
+        for (int average : AVERAGE_LENGTHS) {
+            blob.putInt(average);
+        }
+        for (int length : lengths) {
+            blob.putInt(length);
+        }
+        for (int[] column : hits) {
+            blob.putInt(column[0]).putInt(column[1]).putInt(column[2]);
+        }
+        return blob.array();
+    }
+
+    private static double score(int[] lengths, int[][] hits) {
+        NoteMatch match = new NoteMatch();
+        match.matchInfo = matchInfo(lengths, hits);
+        return match.getScore();
+    }
+
+    @Test
+    public void titleHitOfAverageLength_isWeightedIdf() {
+        // tf is exactly 1 at average length, so the score is the title weight times the idf
+        double score = score(new int[] {5, 50, 10}, new int[][] {{1, 10, 10}, {0, 0, 0}, {0, 0, 0}});
+        assertEquals(3.0 * Math.log(90.5 / 10.5), score, 1e-9);
+    }
+
+    @Test
+    public void titleHit_outranksContentHit() {
+        double title = score(new int[] {5, 50, 10}, new int[][] {{1, 10, 10}, {0, 10, 10}, {0, 0, 0}});
+        double content = score(new int[] {5, 50, 10}, new int[][] {{0, 10, 10}, {1, 10, 10}, {0, 0, 0}});
+        assertTrue(title > content);
+    }
+
+    @Test
+    public void rareTerm_outranksCommonTerm() {
+        double rare = score(new int[] {5, 50, 10}, new int[][] {{0, 0, 0}, {1, 2, 2}, {0, 0, 0}});
+        double common = score(new int[] {5, 50, 10}, new int[][] {{0, 0, 0}, {1, 40, 40}, {0, 0, 0}});
+        assertTrue(rare > common);
+    }
+
+    @Test
+    public void shortNote_outranksLongNoteWithSameHits() {
+        double shortNote = score(new int[] {5, 20, 10}, new int[][] {{0, 0, 0}, {2, 10, 10}, {0, 0, 0}});
+        double longNote = score(new int[] {5, 400, 10}, new int[][] {{0, 0, 0}, {2, 10, 10}, {0, 0, 0}});
+        assertTrue(shortNote > longNote);
+    }
+
+    @Test
+    public void moreHits_scoreHigherButSaturate() {
+        int[] lengths = {5, 50, 10};
+        double one = score(lengths, new int[][] {{0, 0, 0}, {1, 10, 10}, {0, 0, 0}});
+        double two = score(lengths, new int[][] {{0, 0, 0}, {2, 10, 10}, {0, 0, 0}});
+        double twenty = score(lengths, new int[][] {{0, 0, 0}, {20, 10, 10}, {0, 0, 0}});
+        assertTrue(two > one);
+        assertTrue(twenty < 10 * two);
+    }
+
+    @Test
+    public void termInMostRows_keepsASmallPositiveScore() {
+        double score = score(new int[] {5, 50, 10}, new int[][] {{0, 0, 0}, {1, 90, 90}, {0, 0, 0}});
+        assertTrue(score > 0);
+        assertTrue(score < 0.1);
+    }
+
+    @Test
+    public void missingMatchInfo_scoresZero() {
+        assertEquals(0.0, new NoteMatch().getScore(), 0.0);
+    }
+}
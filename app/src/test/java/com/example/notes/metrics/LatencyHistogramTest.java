@@ -0,0 +1,129 @@
+package com.example.notes.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+    private static final double MAX_ERROR = 0.0625;
+
+    @Test
+    public void buckets_exactBelow32() {
+        for (long value = 0; value < 32; value++) {
+            assertEquals(value, LatencyHistogram.valueOf(LatencyHistogram.indexOf(value)));
+        }
+    }
+
+    @Test
+    public void buckets_within625PercentAbove() {
+        for (long value = 32; value < 1_000_000; value++) {
+            assertWithinError(value, LatencyHistogram.valueOf(LatencyHistogram.indexOf(value)));
+        }
+        for (long value = 1_000_000; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+            assertWithinError(value, LatencyHistogram.valueOf(LatencyHistogram.indexOf(value)));
+        }
+        assertWithinError(Long.MAX_VALUE, LatencyHistogram.valueOf(LatencyHistogram.indexOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void buckets_increaseWithValue() {
+        int previous = LatencyHistogram.indexOf(0);
+        for (long value = 1; value < 100_000; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(index == previous || index == previous + 1);
+            previous = index;
+        }
+    }
+
+    @Test
+    public void percentiles_ofUniformValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros);
+        }
+        assertEquals(10_000, histogram.getCount());
+        assertWithinError(5_000, histogram.getPercentileMicros(50));
+        assertWithinError(9_000, histogram.getPercentileMicros(90));
+        assertWithinError(9_900, histogram.getPercentileMicros(99));
+        assertEquals(1, histogram.getPercentileMicros(0));
+        assertEquals(5_000.5, histogram.getMeanMicros(), 1e-9);
+    }
+
+    @Test
+    public void percentiles_p100IsTheMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(12);
+        histogram.record(1_234_567);
+        assertEquals(1_234_567, histogram.getMaxMicros());
+        assertEquals(1_234_567, histogram.getPercentileMicros(100));
+        assertEquals(12, histogram.getPercentileMicros(50));
+    }
+
+    @Test
+    public void percentiles_neverAboveTheMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 1000 shares a bucket with values up to 1023, whose middle is above it
+        for (int i = 0; i < 10; i++) {
+            histogram.record(1_000);
+        }
+        assertEquals(1_000, histogram.getPercentileMicros(50));
+    }
+
+    @Test
+    public void empty_reportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileMicros(50));
+        assertEquals(0, histogram.getPercentileMicros(100));
+        assertEquals(0, histogram.getMaxMicros());
+        assertEquals(0, histogram.getMeanMicros(), 0);
+    }
+
+    @Test
+    public void reset_forgetsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(500);
+        histogram.record(70_000);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxMicros());
+        assertEquals(0, histogram.getPercentileMicros(99));
+        histogram.record(40);
+        assertEquals(40, histogram.getPercentileMicros(50));
+    }
+
+    @Test
+    public void recordNanos_convertsToMicros() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(25_999);
+        histogram.recordNanos(-5);
+        assertEquals(25, histogram.getMaxMicros());
+        assertEquals(0, histogram.getPercentileMicros(50));
+    }
+
+    @Test
+    public void record_fromSeveralThreads() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long offset = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i * 4 + offset);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40_000, histogram.getCount());
+        assertEquals(39_999, histogram.getMaxMicros());
+        assertWithinError(20_000, histogram.getPercentileMicros(50));
+    }
+
+    private static void assertWithinError(long expected, long actual) {
+        assertTrue(actual + " for " + expected, Math.abs(actual - expected) <= expected * MAX_ERROR);
+    }
+}
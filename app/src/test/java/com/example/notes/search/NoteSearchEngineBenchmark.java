@@ -0,0 +1,114 @@
+package com.example.notes.search;
+
+import static org.junit.Assert.assertTrue;
+
+import com.example.notes.Benchmarks;
+import com.example.notes.models.Note;
+import com.example.notes.utils.NoteTextUtils;
+import com.example.notes.utils.SearchNormalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Keystroke-to-results work on the search thread when the new query extends the previous one
+ * ("pro" -> "proj"), against the lowercase-and-contains filter that ran on the UI thread before.
+ * The first keystroke of a query goes to the full-text index, see FtsSearchBenchmark.
+ *
+ * About one note in PROJECT_NOTE_SHARE mentions a project, so "pro" matches a realistic part of
+ * the notes rather than all of them.
+ */
+public class NoteSearchEngineBenchmark {
+    private static final long FRAME_NANOS = 16_000_000;
+    private static final int PROJECT_NOTE_SHARE = 5;
+
+    @Before
+    public void setUp() {
+        Benchmarks.assumeEnabled();
+    }
+
+    @Test
+    public void refine1k() {
+        assertTrue(run(1_000) < FRAME_NANOS);
+    }
+
+    @Test
+    public void refine10k() {
+        assertTrue(run(10_000) < FRAME_NANOS);
+    }
+
+    @Test
+    public void refine50k() {
+        assertTrue(run(50_000) < FRAME_NANOS);
+    }
+
+    // Returns the median refinement time
+    private long run(int noteCount) {
+        List<Note> notes = sampleNotes(noteCount);
+        // What "pro" matched, the starting point of the refinement
+        List<Note> previous = refine(notes, "pro");
+
+        long refine = Benchmarks.medianNanos(() -> refine(previous, "proj réu"));
+        long baseline = Benchmarks.medianNanos(() -> baselineFilter(notes, "proj"));
+        Benchmarks.report(noteCount + " notes: refine " + Benchmarks.micros(refine) + " over " + previous.size()
+                + " previous results, baseline filter " + Benchmarks.micros(baseline));
+        assertTrue("Refining " + noteCount + " notes took " + Benchmarks.micros(refine), refine < baseline / 2);
+        return refine;
+    }
+
+    // The refinement step of NoteSearchEngine.search
+    private static List<Note> refine(List<Note> previous, String query) {
+        List<String> tokens = NoteTextUtils.words(SearchNormalizer.normalize(query));
+        List<Note> results = new ArrayList<>();
+        for (Note note : previous) {
+            if (NoteSearchEngine.matches(note, tokens)) {
+                results.add(note);
+            }
+        }
+        return results;
+    }
+
+    // MainActivity.filterNotes before the search engine: three lowercase copies per note
+    private static List<Note> baselineFilter(List<Note> notes, String query) {
+        List<Note> results = new ArrayList<>();
+        String lowerCaseQuery = query.toLowerCase(Locale.ROOT);
+        for (Note note : notes) {
+            String title = note.getTitle() != null ? note.getTitle().toLowerCase() : "";
+            String content = note.getContent() != null ? note.getContent().toLowerCase() : "";
+            String summary = note.getSummary() != null ? note.getSummary().toLowerCase() : "";
+            if (title.contains(lowerCaseQuery) || content.contains(lowerCaseQuery) || summary.contains(lowerCaseQuery)) {
+                results.add(note);
+            }
+        }
+        return results;
+    }
+
+    private static List<Note> sampleNotes(int count) {
+        Random random = new Random(42);
+        List<Note> notes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean french = random.nextBoolean();
+            boolean project = random.nextInt(PROJECT_NOTE_SHARE) == 0;
+            Note note = new Note(sampleText(random, 4, french, project),
+                    sampleText(random, 40 + random.nextInt(80), french, project),
+                    sampleText(random, 15, french, project));
+            // Search keys are built once per note and kept, like in the app
+            note.getSearchKey();
+            notes.add(note);
+        }
+        return notes;
+    }
+
+    private static String sampleText(Random random, int words, boolean french, boolean project) {
+        String text = Benchmarks.sampleText(random, words, french);
+        if (project) {
+            return text;
+        }
+        // The only words of the vocabulary starting with "pro"
+        return text.replace("projet", "dossier").replace("Projet", "Dossier")
+                .replace("project", "folder").replace("Project", "Folder");
+    }
+}
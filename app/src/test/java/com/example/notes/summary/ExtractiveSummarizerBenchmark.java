@@ -0,0 +1,89 @@
+package com.example.notes.summary;
+
+import static org.junit.Assert.assertTrue;
+
+import com.example.notes.Benchmarks;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Time of ExtractiveSummarizer on growing notes, with the first/middle/last heuristic it replaced
+ * for reference. The summarizer does more work per char than the heuristic, but stops reading
+ * after 20 KB where the heuristic splits the whole note.
+ */
+public class ExtractiveSummarizerBenchmark {
+    private final ExtractiveSummarizer summarizer = new ExtractiveSummarizer();
+
+    @Before
+    public void setUp() {
+        Benchmarks.assumeEnabled();
+    }
+
+    @Test
+    public void summarize1Kb() {
+        // A note of this size must summarize well within a frame
+        assertTrue(run(180) < 1_000_000);
+    }
+
+    @Test
+    public void summarize10Kb() {
+        run(1_800);
+    }
+
+    @Test
+    public void summarizeHugeNotes_costsNoMoreThanTheCap() {
+        long capped = run(3_600);
+        long huge = run(180_000);
+        assertTrue("1 MB took " + Benchmarks.micros(huge) + ", 20 KB " + Benchmarks.micros(capped),
+                huge < capped * 2);
+    }
+
+    // Returns the median summarization time
+    private long run(int words) {
+        String text = Benchmarks.sampleText(new Random(11), words, true);
+        long summarize = Benchmarks.medianNanos(() -> summarizer.summarize(text, "fr"));
+        long baseline = Benchmarks.medianNanos(() -> baselineSummary(text));
+        long summarizeBytes = Benchmarks.allocatedBytes(() -> summarizer.summarize(text, "fr"));
+        Benchmarks.report(text.length() / 1024 + " KB: summarize " + Benchmarks.micros(summarize) + ", "
+                + summarizeBytes / 1024 + " KB allocated; first/middle/last " + Benchmarks.micros(baseline));
+        return summarize;
+    }
+
+    // CreateNoteActivity.generateSimpleSummary before ExtractiveSummarizer
+    private static String baselineSummary(String content) {
+        if (content == null || content.isEmpty()) {
+            return "";
+        }
+        if (content.length() <= 50) {
+            return content;
+        }
+
+        String[] sentences = content.split("[.!?]+");
+        if (sentences.length <= 1) {
+            String[] words = content.split("\\s+");
+            if (words.length <= 10) {
+                return content;
+            }
+            return String.join(" ",
+                    String.join(" ", Arrays.copyOfRange(words, 0, 3)),
+                    "...",
+                    String.join(" ", Arrays.copyOfRange(words, words.length - 3, words.length)));
+        }
+
+        StringBuilder summary = new StringBuilder();
+        summary.append(sentences[0].trim());
+        if (sentences.length > 2) {
+            String midSentence = sentences[sentences.length / 2].trim();
+            if (midSentence.length() > 20) {
+                summary.append(". ").append(midSentence);
+            }
+        }
+        String lastSentence = sentences[sentences.length - 1].trim();
+        if (!lastSentence.equals(sentences[0].trim())) {
+            summary.append(". ").append(lastSentence);
+        }
+        return summary.toString().trim();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.notes.summary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+// Quality fixtures: what a summary of a typical note must keep, and the limits on its size
+public class ExtractiveSummarizerTest {
+    private static final int MAX_SUMMARY_CHARS = 400;
+
+    private final ExtractiveSummarizer summarizer = new ExtractiveSummarizer();
+
+    private static final String MEETING_NOTE = "Réunion budget avec l'équipe livraison. "
+            + "Il faisait beau ce matin. "
+            + "Le budget de la livraison dépasse le budget prévu de dix pour cent. "
+            + "Marc a apporté des croissants. "
+            + "La livraison du client est repoussée, le budget doit être revu avant vendredi. "
+            + "On a parlé des vacances. "
+            + "Prochaine réunion lundi.";
+
+    @Test
+    public void summarize_keepsTheTopicSentences() {
+        String summary = summarizer.summarize(MEETING_NOTE, "fr");
+        assertTrue(summary, summary.startsWith("Réunion budget avec l'équipe livraison."));
+        for (String sentence : summary.split("(?<=\\.) ")) {
+            assertTrue(sentence, sentence.contains("budget") && sentence.contains("livraison"));
+        }
+        assertFalse(summary, summary.contains("croissants"));
+        assertFalse(summary, summary.contains("beau"));
+        assertFalse(summary, summary.contains("vacances"));
+    }
+
+    @Test
+    public void summarize_givesSentencesBackInReadingOrder() {
+        String summary = summarizer.summarize(MEETING_NOTE, "fr");
+        int previous = -1;
+        for (String sentence : summary.split("(?<=\\.) ")) {
+            int position = MEETING_NOTE.indexOf(sentence);
+            assertTrue(sentence, position > previous);
+            previous = position;
+        }
+    }
+
+    @Test
+    public void summarize_keepsShortTextAsIs() {
+        assertEquals("Acheter du pain", summarizer.summarize("Acheter du pain", "fr"));
+        String fiftyChars = "Rappel : appeler le médecin demain pour le rdv ok.";
+        assertEquals(50, fiftyChars.length());
+        assertEquals(fiftyChars, summarizer.summarize(fiftyChars, "fr"));
+    }
+
+    @Test
+    public void summarize_emptyForMissingContent() {
+        assertEquals("", summarizer.summarize(null, "fr"));
+        assertEquals("", summarizer.summarize("", "en"));
+    }
+
+    @Test
+    public void summarize_keepsASingleSentenceUnderTheLimit() {
+        String sentence = "Meeting with the design team about the new roadmap and the release";
+        assertEquals(sentence, summarizer.summarize(sentence, "en"));
+    }
+
+    @Test
+    public void summarize_cutsLongTextOnAWord() {
+        // One run of 25 long words, longer than a summary
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 25; i++) {
+            text.append("internationalization").append(i).append(' ');
+        }
+        String summary = summarizer.summarize(text.toString().trim(), "en");
+        assertTrue(summary, summary.endsWith("…"));
+        assertTrue(summary.length() <= MAX_SUMMARY_CHARS + 1);
+        assertTrue(summary, summary.matches("(internationalization\\d+ )*internationalization\\d+…"));
+    }
+
+    @Test
+    public void summarize_cutsUnpunctuatedDictation() {
+        // 200 words with no punctuation: summarized as runs of at most 25 words, not returned whole
+        StringBuilder text = new StringBuilder("appeler le client pour le contrat et la facture de mars ");
+        for (int i = 0; i < 19; i++) {
+            text.append(i % 4 == 0 ? "euh la facture du client " : "bon alors voilà donc euh ");
+            text.append("ensuite il faut voir ");
+        }
+        String dictation = text.toString().trim();
+        String summary = summarizer.summarize(dictation, "fr");
+        assertTrue(summary.length() <= MAX_SUMMARY_CHARS + 1);
+        assertTrue(summary, summary.startsWith("appeler le client pour le contrat et la facture de mars"));
+        assertTrue(summary.split(" ").length <= 3 * 25);
+        assertTrue(summary.length() < dictation.length() / 2);
+    }
+
+    @Test
+    public void summarize_onlyReadsTheStartOfHugeNotes() {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 100 * 1024) {
+            text.append(MEETING_NOTE).append(' ');
+        }
+        text.append("Conclusion unique sur le budget de la livraison, le budget, la livraison.");
+        String summary = summarizer.summarize(text.toString(), "fr");
+        assertTrue(summary.length() <= MAX_SUMMARY_CHARS + 1);
+        assertFalse(summary, summary.contains("Conclusion"));
+    }
+
+    @Test
+    public void summarize_isDeterministic() {
+        assertEquals(summarizer.summarize(MEETING_NOTE, "fr"), summarizer.summarize(MEETING_NOTE, "fr"));
+    }
+}
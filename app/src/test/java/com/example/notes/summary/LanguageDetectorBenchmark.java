@@ -0,0 +1,44 @@
+package com.example.notes.summary;
+
+import static org.junit.Assert.assertTrue;
+
+import com.example.notes.Benchmarks;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+// Time and allocations of LanguageDetector.detect against the detectLanguage method it replaced
+public class LanguageDetectorBenchmark {
+    @Before
+    public void setUp() {
+        Benchmarks.assumeEnabled();
+    }
+
+    @Test
+    public void detect1Kb() {
+        run(180);
+    }
+
+    @Test
+    public void detect10Kb() {
+        run(1_800);
+    }
+
+    @Test
+    public void detect100Kb() {
+        run(18_000);
+    }
+
+    private void run(int words) {
+        String text = Benchmarks.sampleText(new Random(7), words, true);
+        long detectNanos = Benchmarks.medianNanos(() -> LanguageDetector.detect(text));
+        long baselineNanos = Benchmarks.medianNanos(() -> LanguageDetectorTest.baselineDetectLanguage(text));
+        long detectBytes = Benchmarks.allocatedBytes(() -> LanguageDetector.detect(text));
+        long baselineBytes = Benchmarks.allocatedBytes(() -> LanguageDetectorTest.baselineDetectLanguage(text));
+        Benchmarks.report(text.length() / 1024 + " KB: detect " + Benchmarks.micros(detectNanos) + ", "
+                + detectBytes / 1024 + " KB allocated; baseline " + Benchmarks.micros(baselineNanos) + ", "
+                + baselineBytes / 1024 + " KB allocated");
+        assertTrue(detectNanos < baselineNanos);
+        assertTrue(detectBytes < baselineBytes);
+    }
+}
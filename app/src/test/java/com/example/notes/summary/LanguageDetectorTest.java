@@ -0,0 +1,137 @@
+package com.example.notes.summary;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * LanguageDetector against the detectLanguage method it replaced, copied below without its comments.
+ *
+ * Both agree on text made of whitespace-separated words with punctuation around them. They
+ * differ, on purpose, where the old method glued a word back together after stripping what
+ * was not a letter:
+ * - elisions and hyphens: "c'est" was "cest", it is now "c" and "est"
+ * - digits: "2le" was "le", it is now one unknown word
+ * - letters outside the French alphabet: "leñ" was "le", it is now an unknown word
+ * and the detector only reads the first 8 KB of a note.
+ */
+public class LanguageDetectorTest {
+    private static final String[] WORDS = {
+            "le", "la", "les", "un", "une", "des", "et", "est", "dans", "pour", "avec", "sans", "sur",
+            "sous", "par", "que", "qui", "quoi", "où", "quand", "comment", "pourquoi",
+            "the", "a", "an", "and", "is", "in", "for", "with", "without", "on", "under", "by", "that",
+            "which", "what", "where", "when", "how", "why",
+            "The", "LE", "Où", "QUAND", "été", "Élève", "garçon", "naïve", "hôtel", "déjà", "projet",
+            "meeting", "budget", "x", "é", "I", "notes", "Räume", "über"};
+    private static final String[] SEPARATORS = {" ", "  ", "\n", "\t", " \n "};
+    private static final String[] EDGES = {"", "", "", ".", ",", "!", "?", ":", "(", ")", "\"", "«", "»", "…"};
+
+    // CreateNoteActivity.detectLanguage before LanguageDetector
+    static String baselineDetectLanguage(String text) {
+        if (text == null || text.isEmpty()) return "fr";
+
+        int frenchScore = 0;
+        int englishScore = 0;
+
+        String frenchChars = "éèêëàâçîïôöûüù";
+        String[] frenchWords = {"le", "la", "les", "un", "une", "des", "et", "est", "dans", "pour", "avec", "sans", "sur", "sous", "par", "que", "qui", "quoi", "où", "quand", "comment", "pourquoi"};
+        String[] englishWords = {"the", "a", "an", "and", "is", "in", "for", "with", "without", "on", "under", "by", "that", "which", "what", "where", "when", "how", "why"};
+
+        for (char c : text.toLowerCase().toCharArray()) {
+            if (frenchChars.indexOf(c) != -1) {
+                frenchScore += 2;
+            }
+        }
+
+        String[] words = text.toLowerCase().split("\\s+");
+        for (String word : words) {
+            word = word.replaceAll("[^a-zéèêëàâçîïôöûüù]", "");
+            if (word.length() > 1) {
+                for (String frenchWord : frenchWords) {
+                    if (word.equals(frenchWord)) {
+                        frenchScore++;
+                        break;
+                    }
+                }
+                for (String englishWord : englishWords) {
+                    if (word.equals(englishWord)) {
+                        englishScore++;
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (frenchScore > 0) {
+            frenchScore += 5;
+        }
+
+        return frenchScore >= englishScore ? "fr" : "en";
+    }
+
+    @Test
+    public void matchesBaseline_onPunctuatedWords() {
+        Random random = new Random(20_000);
+        for (int i = 0; i < 20_000; i++) {
+            String text = randomText(random);
+            assertEquals("For \"" + text + "\"", baselineDetectLanguage(text), LanguageDetector.detect(text));
+        }
+    }
+
+    @Test
+    public void matchesBaseline_onSimpleNotes() {
+        assertEquals("en", LanguageDetector.detect("Meeting with the team on what to ship and when"));
+        assertEquals("fr", LanguageDetector.detect("Réunion avec l'équipe pour le budget"));
+        assertEquals("fr", LanguageDetector.detect(""));
+        assertEquals("fr", LanguageDetector.detect(null));
+    }
+
+    @Test
+    public void elisions_nowCountAsTheirWords() {
+        String text = "c'est what the";
+        assertEquals("en", baselineDetectLanguage(text));
+        assertEquals("fr", LanguageDetector.detect(text));
+    }
+
+    @Test
+    public void digitsInsideWords_noLongerDropped() {
+        String text = "2le what the";
+        assertEquals("fr", baselineDetectLanguage(text));
+        assertEquals("en", LanguageDetector.detect(text));
+    }
+
+    @Test
+    public void foreignLettersInsideWords_noLongerDropped() {
+        String text = "leñ what";
+        assertEquals("fr", baselineDetectLanguage(text));
+        assertEquals("en", LanguageDetector.detect(text));
+    }
+
+    @Test
+    public void onlyTheFirst8KbAreRead() {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 8 * 1024) {
+            text.append("the and what ");
+        }
+        for (int i = 0; i < 3000; i++) {
+            text.append(" où");
+        }
+        assertEquals("fr", baselineDetectLanguage(text.toString()));
+        assertEquals("en", LanguageDetector.detect(text));
+    }
+
+    private static String randomText(Random random) {
+        int words = 1 + random.nextInt(12);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+            }
+            text.append(EDGES[random.nextInt(EDGES.length)])
+                    .append(WORDS[random.nextInt(WORDS.length)])
+                    .append(EDGES[random.nextInt(EDGES.length)]);
+        }
+        return text.toString();
+    }
+}
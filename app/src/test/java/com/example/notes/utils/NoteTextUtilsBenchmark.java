@@ -0,0 +1,81 @@
+package com.example.notes.utils;
+
+import static org.junit.Assert.assertTrue;
+
+import com.example.notes.Benchmarks;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+// Time and allocations of the precompiled patterns and the segmenter, against the replaceAll and
+// split calls they replaced
+public class NoteTextUtilsBenchmark {
+    @Before
+    public void setUp() {
+        Benchmarks.assumeEnabled();
+    }
+
+    @Test
+    public void cleanSummary() {
+        String summary = "Voici le résumé de la note :  " + Benchmarks.sampleText(new Random(3), 60, true);
+        long clean = Benchmarks.medianNanos(() -> NoteTextUtils.cleanSummary(summary));
+        long baseline = Benchmarks.medianNanos(() -> NoteTextUtilsTest.baselineCleanSummary(summary));
+        long cleanBytes = Benchmarks.allocatedBytes(() -> NoteTextUtils.cleanSummary(summary));
+        long baselineBytes = Benchmarks.allocatedBytes(() -> NoteTextUtilsTest.baselineCleanSummary(summary));
+        Benchmarks.report("cleanSummary: " + Benchmarks.micros(clean) + ", " + cleanBytes + " bytes allocated; replaceAll "
+                + Benchmarks.micros(baseline) + ", " + baselineBytes + " bytes allocated");
+        assertTrue(clean < baseline);
+        assertTrue(cleanBytes < baselineBytes);
+    }
+
+    @Test
+    public void segment10Kb() {
+        segment(1_800);
+    }
+
+    @Test
+    public void segment100Kb() {
+        segment(18_000);
+    }
+
+    private void segment(int words) {
+        String text = Benchmarks.sampleText(new Random(5), words, false);
+        long segment = Benchmarks.medianNanos(() -> countWords(text));
+        long baseline = Benchmarks.medianNanos(() -> baselineCountWords(text));
+        long segmentBytes = Benchmarks.allocatedBytes(() -> countWords(text));
+        long baselineBytes = Benchmarks.allocatedBytes(() -> baselineCountWords(text));
+        Benchmarks.report(text.length() / 1024 + " KB: segment " + Benchmarks.micros(segment) + ", "
+                + segmentBytes / 1024 + " KB allocated; split " + Benchmarks.micros(baseline) + ", "
+                + baselineBytes / 1024 + " KB allocated");
+        assertTrue(segment < baseline);
+        assertTrue(segmentBytes < baselineBytes);
+    }
+
+    // Words and sentences of the text without building any string
+    private static int[] countWords(String text) {
+        int[] counts = new int[2];
+        NoteTextUtils.segment(text, text.length(), new NoteTextUtils.WordVisitor() {
+            @Override
+            public void onWord(CharSequence source, int start, int end) {
+                counts[0]++;
+            }
+
+            @Override
+            public void onSentenceEnd(int end) {
+                counts[1]++;
+            }
+        });
+        return counts;
+    }
+
+    // The same through the splits generateSimpleSummary and detectLanguage used
+    private static int[] baselineCountWords(String text) {
+        int[] counts = new int[2];
+        String[] sentences = text.split("[.!?]+");
+        counts[1] = sentences.length;
+        for (String sentence : sentences) {
+            counts[0] += sentence.trim().split("\\s+").length;
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.notes.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class NoteTextUtilsTest {
+    // CreateNoteActivity.cleanSummary before NoteTextUtils
+    static String baselineCleanSummary(String summary) {
+        summary = summary.replaceAll("(?i)^(voici|here is|here's|this is|aquí está|hier ist|ecco|resumen|zusammenfassung).*?:\\s*", "");
+        summary = summary.replaceAll("(?i)^(le texte|the text|el texto|der text).*?\\s", "");
+        summary = summary.replaceAll("\\s+", " ");
+        return summary.trim();
+    }
+
+    @Test
+    public void cleanSummary_matchesBaseline() {
+        String[] summaries = {
+                "Voici le résumé : Réunion budget lundi.",
+                "Here's the summary:\n\n  Meeting   moved to Monday. ",
+                "HIER IST die Zusammenfassung:Treffen",
+                "Le texte parle du budget de la livraison.",
+                "the text is about nothing",
+                "Résumé sans préfixe\tavec\ttabulations",
+                "Voici sans deux-points",
+                "  ",
+                ""};
+        for (String summary : summaries) {
+            assertEquals(summary, baselineCleanSummary(summary), NoteTextUtils.cleanSummary(summary));
+        }
+    }
+
+    @Test
+    public void collapseWhitespace_trimsAndJoinsRuns() {
+        assertEquals("a b c", NoteTextUtils.collapseWhitespace("  a \n\t b   c\n"));
+        assertEquals("", NoteTextUtils.collapseWhitespace(" \n "));
+    }
+
+    @Test
+    public void segment_reportsWordAndSentenceOffsets() {
+        String text = "Réunion à 10h. Budget: OK!\nSuite";
+        List<String> events = new ArrayList<>();
+        NoteTextUtils.segment(text, text.length(), new NoteTextUtils.WordVisitor() {
+            @Override
+            public void onWord(CharSequence source, int start, int end) {
+                events.add(source.subSequence(start, end) + "@" + start);
+            }
+
+            @Override
+            public void onSentenceEnd(int end) {
+                events.add("|" + end);
+            }
+        });
+        assertEquals(Arrays.asList("Réunion@0", "à@8", "10h@10", "|14", "Budget@15", "OK@23", "|26",
+                "Suite@27", "|32"), events);
+    }
+
+    @Test
+    public void segment_needsSpaceAfterTerminator() {
+        // "3.5" and "e.g." are not sentence ends, a period followed by a space is
+        List<Integer> ends = sentenceEnds("Version 3.5 e.g.x fin. Next");
+        assertEquals(Arrays.asList(22, 27), ends);
+    }
+
+    @Test
+    public void segment_stopsAtLimit() {
+        String text = "un deux trois";
+        List<String> words = new ArrayList<>();
+        NoteTextUtils.segment(text, 6, (source, start, end) -> words.add(source.subSequence(start, end).toString()));
+        assertEquals(Arrays.asList("un", "deu"), words);
+        assertEquals(Collections.singletonList(6), sentenceEnds(text, 6));
+    }
+
+    @Test
+    public void segment_noSentenceWithoutWords() {
+        assertEquals(Collections.<Integer>emptyList(), sentenceEnds("... !? \n\n"));
+        // The line break belongs to the sentence it ends
+        assertEquals(Collections.singletonList(5), sentenceEnds("\n\nab\n\n"));
+    }
+
+    @Test
+    public void words_splitsOnAnythingButLettersAndDigits() {
+        assertEquals(Arrays.asList("c", "est", "l", "été", "2026", "a", "b"), NoteTextUtils.words("c'est l'été 2026, a-b"));
+        assertEquals(Collections.<String>emptyList(), NoteTextUtils.words(" -- "));
+    }
+
+    @Test
+    public void lowercase_copiesTheRange() {
+        assertEquals("été", NoteTextUtils.lowercase("Un ÉTÉ chaud", 3, 6));
+    }
+
+    private static List<Integer> sentenceEnds(String text) {
+        return sentenceEnds(text, text.length());
+    }
+
+    private static List<Integer> sentenceEnds(String text, int limit) {
+        List<Integer> ends = new ArrayList<>();
+        NoteTextUtils.segment(text, limit, new NoteTextUtils.WordVisitor() {
+            @Override
+            public void onWord(CharSequence source, int start, int end) {
+            }
+
+            @Override
+            public void onSentenceEnd(int end) {
+                ends.add(end);
+            }
+        });
+        return ends;
+    }
+}
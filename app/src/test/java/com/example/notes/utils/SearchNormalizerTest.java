@@ -0,0 +1,54 @@
+package com.example.notes.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SearchNormalizerTest {
+    @Test
+    public void normalize_foldsCaseAndAccents() {
+        assertEquals("ete", SearchNormalizer.normalize("Été"));
+        assertEquals("ca va a noel", SearchNormalizer.normalize("ÇA VA À NOËL"));
+        assertEquals("naive creme brulee", SearchNormalizer.normalize("naïve crème brûlée"));
+        assertEquals("angstrom", SearchNormalizer.normalize("Ångström"));
+    }
+
+    @Test
+    public void normalize_keepsAsciiAndPunctuation() {
+        assertEquals("meeting @ 10:30, room b-2", SearchNormalizer.normalize("Meeting @ 10:30, Room B-2"));
+        String ascii = "already normalized";
+        assertEquals(ascii, SearchNormalizer.normalize(ascii));
+    }
+
+    @Test
+    public void normalize_emptyForMissingText() {
+        assertEquals("", SearchNormalizer.normalize(null));
+        assertEquals("", SearchNormalizer.normalize(""));
+    }
+
+    @Test
+    public void buildSearchKey_separatesFields() {
+        assertEquals("reunion\n\nresume", SearchNormalizer.buildSearchKey("Réunion", null, "Résumé"));
+        // A word cannot span the end of the title and the start of the content
+        assertFalse(SearchNormalizer.containsWordPrefix(SearchNormalizer.buildSearchKey("pro", "jet", ""), "proj"));
+    }
+
+    @Test
+    public void containsWordPrefix_onlyMatchesWordStarts() {
+        String key = SearchNormalizer.buildSearchKey("Projet été", "Réunion d'équipe", null);
+        assertTrue(SearchNormalizer.containsWordPrefix(key, "proj"));
+        assertTrue(SearchNormalizer.containsWordPrefix(key, "ete"));
+        assertTrue(SearchNormalizer.containsWordPrefix(key, "reu"));
+        assertTrue(SearchNormalizer.containsWordPrefix(key, "equipe"));
+        assertFalse(SearchNormalizer.containsWordPrefix(key, "jet"));
+        assertFalse(SearchNormalizer.containsWordPrefix(key, "union"));
+    }
+
+    @Test
+    public void containsWordPrefix_findsALaterWordStart() {
+        // The first occurrence is inside a word, the second starts one
+        assertTrue(SearchNormalizer.containsWordPrefix("reprojet projet", "projet"));
+    }
+}
@@ -2,6 +2,9 @@ CREATE DATABASE notes_db;
 
 \c notes_db;
 
+-- Trigram indexes for fuzzy title search
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
 CREATE TABLE IF NOT EXISTS users (
     id SERIAL PRIMARY KEY,
     email VARCHAR(255) UNIQUE NOT NULL,
@@ -20,9 +23,43 @@ CREATE TABLE IF NOT EXISTS notes (
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Full-text search document, kept up to date by PostgreSQL. French stems "réunions" to
+-- "réunion", simple keeps the words as typed for names and other languages.
+ALTER TABLE notes ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('french', coalesce(title, '')), 'A') ||
+    setweight(to_tsvector('simple', coalesce(title, '')), 'A') ||
+    setweight(to_tsvector('french', coalesce(content, '')), 'B') ||
+    setweight(to_tsvector('simple', coalesce(content, '')), 'B')
+) STORED;
+
+-- Deleted notes, so clients doing a delta sync can drop them locally
+CREATE TABLE IF NOT EXISTS note_tombstones (
+    note_id INTEGER PRIMARY KEY,
+    user_id INTEGER REFERENCES users(id),
+    deleted_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Bumped by every write to a user's notes, deletes included, so the ETag of the notes list
+-- is one primary key lookup. The bump commits with the write, however late that is.
+CREATE TABLE IF NOT EXISTS note_list_versions (
+    user_id INTEGER PRIMARY KEY REFERENCES users(id),
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+-- Transaction that last wrote the row, for delta sync. Timestamps are taken when a
+-- transaction starts, so a slow one can commit rows older than a watermark a client already
+-- holds; transaction ids are compared against snapshot bounds instead (see server/db.js).
+ALTER TABLE notes ADD COLUMN IF NOT EXISTS change_xid xid8 NOT NULL DEFAULT pg_current_xact_id();
+ALTER TABLE note_tombstones ADD COLUMN IF NOT EXISTS change_xid xid8 NOT NULL DEFAULT pg_current_xact_id();
+
 CREATE INDEX idx_notes_title ON notes(title);
 CREATE INDEX idx_notes_created_at ON notes(created_at);
+CREATE INDEX idx_notes_user_change_xid ON notes(user_id, change_xid);
+CREATE INDEX idx_notes_user_created_at_id ON notes(user_id, created_at DESC, id DESC);
+CREATE INDEX idx_notes_search_vector ON notes USING GIN (search_vector);
+CREATE INDEX idx_notes_title_trgm ON notes USING GIN (title gin_trgm_ops);
 CREATE INDEX idx_users_email ON users(email);
+CREATE INDEX idx_note_tombstones_user_change_xid ON note_tombstones(user_id, change_xid);
 
 CREATE OR REPLACE FUNCTION update_updated_at_column()
 RETURNS TRIGGER AS $$
@@ -37,7 +74,64 @@ CREATE TRIGGER update_notes_updated_at
     FOR EACH ROW
     EXECUTE FUNCTION update_updated_at_column();
 
+CREATE OR REPLACE FUNCTION update_note_change_xid()
+RETURNS TRIGGER AS $$
+BEGIN
+    NEW.change_xid = pg_current_xact_id();
+    RETURN NEW;
+END;
+$$ language 'plpgsql';
+
+CREATE TRIGGER update_notes_change_xid
+    BEFORE UPDATE ON notes
+    FOR EACH ROW
+    EXECUTE FUNCTION update_note_change_xid();
+
 CREATE TRIGGER update_users_updated_at
     BEFORE UPDATE ON users
     FOR EACH ROW
-    EXECUTE FUNCTION update_updated_at_column(); 
\ No newline at end of file
+    EXECUTE FUNCTION update_updated_at_column();
+
+CREATE OR REPLACE FUNCTION record_note_tombstone()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO note_tombstones (note_id, user_id) VALUES (OLD.id, OLD.user_id)
+    ON CONFLICT (note_id) DO UPDATE SET deleted_at = CURRENT_TIMESTAMP, change_xid = pg_current_xact_id();
+    RETURN OLD;
+END;
+$$ language 'plpgsql';
+
+CREATE TRIGGER record_notes_tombstone
+    AFTER DELETE ON notes
+    FOR EACH ROW
+    EXECUTE FUNCTION record_note_tombstone();
+
+CREATE OR REPLACE FUNCTION bump_note_list_version(changed_user_id INTEGER)
+RETURNS VOID AS $$
+BEGIN
+    IF changed_user_id IS NOT NULL THEN
+        INSERT INTO note_list_versions (user_id, version) VALUES (changed_user_id, 1)
+        ON CONFLICT (user_id) DO UPDATE SET version = note_list_versions.version + 1;
+    END IF;
+END;
+$$ language 'plpgsql';
+
+CREATE OR REPLACE FUNCTION record_note_list_change()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM bump_note_list_version(OLD.user_id);
+    ELSE
+        PERFORM bump_note_list_version(NEW.user_id);
+        IF TG_OP = 'UPDATE' AND OLD.user_id IS DISTINCT FROM NEW.user_id THEN
+            PERFORM bump_note_list_version(OLD.user_id);
+        END IF;
+    END IF;
+    RETURN NULL;
+END;
+$$ language 'plpgsql';
+
+CREATE TRIGGER record_notes_list_change
+    AFTER INSERT OR UPDATE OR DELETE ON notes
+    FOR EACH ROW
+    EXECUTE FUNCTION record_note_list_change();
@@ -0,0 +1,124 @@
+require('dotenv').config();
+const cluster = require('cluster');
+const http = require('http');
+const os = require('os');
+
+// Clustered mode: one server.js worker per core behind the same port.
+//   WEB_CONCURRENCY        number of workers (default: one per core)
+//   DB_MAX_CONNECTIONS     PostgreSQL connections for all workers together (default 40),
+//                          keep it below the database's max_connections
+//   STATS_PORT             per-worker stats as JSON on http://127.0.0.1:STATS_PORT/ (default 9100)
+// kill -HUP <primary pid> restarts the workers one at a time without dropping requests,
+// kill -TERM stops them gracefully.
+const WORKERS = parseInt(process.env.WEB_CONCURRENCY, 10) || os.cpus().length;
+const DB_MAX_CONNECTIONS = parseInt(process.env.DB_MAX_CONNECTIONS, 10) || 40;
+const STATS_PORT = parseInt(process.env.STATS_PORT, 10) || 9100;
+// In-flight requests get this long to finish before a stopping worker is killed
+const SHUTDOWN_TIMEOUT_MS = 30000;
+const RESPAWN_DELAY_MS = 1000;
+
+// A rolling restart runs one extra worker while its replacement starts, so the budget is
+// shared by WORKERS + 1 pools
+const POOL_SIZE = Math.max(1, Math.floor(DB_MAX_CONNECTIONS / (WORKERS + 1)));
+
+const stats = new Map();
+let restarting = false;
+let stopping = false;
+
+function fork() {
+    const worker = cluster.fork({
+        DB_POOL_SIZE: String(POOL_SIZE),
+        // Password hashing already has a process per core to run on
+        HASH_WORKERS: process.env.HASH_WORKERS || '1'
+    });
+    worker.on('message', (message) => {
+        if (message && message.type === 'stats') {
+            stats.set(worker.process.pid, { ...message.stats, workerId: worker.id, reportedAt: new Date().toISOString() });
+        }
+    });
+    return worker;
+}
+
+// Stops taking new connections, lets in-flight requests finish, kills the worker if they do not
+function stop(worker) {
+    return new Promise((resolve) => {
+        worker.stopping = true;
+        const timer = setTimeout(() => worker.kill('SIGKILL'), SHUTDOWN_TIMEOUT_MS);
+        worker.once('exit', () => {
+            clearTimeout(timer);
+            resolve();
+        });
+        worker.disconnect();
+    });
+}
+
+function waitListening(worker) {
+    return new Promise((resolve, reject) => {
+        worker.once('listening', resolve);
+        worker.once('exit', () => reject(new Error(`Worker ${worker.process.pid} exited while starting`)));
+    });
+}
+
+async function rollingRestart() {
+    if (restarting || stopping) {
+        return;
+    }
+    restarting = true;
+    console.log('Rolling restart of', Object.keys(cluster.workers).length, 'workers');
+    try {
+        for (const worker of Object.values(cluster.workers)) {
+            if (worker.stopping) {
+                continue;
+            }
+            // Replacement first, so the port always has a listener
+            await waitListening(fork());
+            await stop(worker);
+        }
+        console.log('Rolling restart done');
+    } catch (err) {
+        console.error('Rolling restart aborted:', err.message);
+    } finally {
+        restarting = false;
+    }
+}
+
+function startStatsServer() {
+    const server = http.createServer((req, res) => {
+        res.setHeader('Content-Type', 'application/json');
+        res.end(JSON.stringify({
+            workers: Object.keys(cluster.workers).length,
+            poolSizePerWorker: POOL_SIZE,
+            dbMaxConnections: DB_MAX_CONNECTIONS,
+            perWorker: Object.fromEntries(stats)
+        }, null, 2));
+    });
+    server.listen(STATS_PORT, '127.0.0.1');
+    return server;
+}
+
+if (cluster.isPrimary) {
+    console.log(`Primary ${process.pid}: ${WORKERS} workers, ${POOL_SIZE} database connections each`);
+    for (let i = 0; i < WORKERS; i++) {
+        fork();
+    }
+
+    cluster.on('exit', (worker, code, signal) => {
+        stats.delete(worker.process.pid);
+        if (stopping || worker.stopping || worker.exitedAfterDisconnect) {
+            return;
+        }
+        console.error(`Worker ${worker.process.pid} died (${signal || code}), starting a new one`);
+        setTimeout(fork, RESPAWN_DELAY_MS);
+    });
+
+    const statsServer = startStatsServer();
+    process.on('SIGHUP', rollingRestart);
+    process.on('SIGTERM', async () => {
+        stopping = true;
+        statsServer.close();
+        await Promise.all(Object.values(cluster.workers).map(stop));
+        process.exit(0);
+    });
+} else {
+    require('./server');
+}
@@ -0,0 +1,98 @@
+require('dotenv').config();
+const { Pool } = require('pg');
+
+// The one pool of the process. Every connection is a PostgreSQL backend, so keep
+// (processes x DB_POOL_SIZE) below the server's max_connections.
+const pool = new Pool({
+    host: process.env.DB_HOST,
+    port: process.env.DB_PORT,
+    database: process.env.DB_NAME,
+    user: process.env.DB_USER,
+    password: process.env.DB_PASSWORD,
+    max: parseInt(process.env.DB_POOL_SIZE, 10) || 10,
+    idleTimeoutMillis: 30000,
+    // Fail fast instead of queueing forever when the database is saturated
+    connectionTimeoutMillis: 5000
+});
+
+// An idle client losing its connection must not take the process down
+pool.on('error', (err) => {
+    console.error('Idle database client error:', err);
+});
+
+// Everything but search_vector, which is large and only used by the search query
+const NOTE_COLUMNS = 'id, user_id, title, content, created_at, updated_at';
+
+// Hot queries as named prepared statements: each connection parses and plans them once,
+// later executions only send the name and the parameters.
+const statements = {
+    noteById: `SELECT ${NOTE_COLUMNS}, updated_at::text AS version FROM notes WHERE id = $1 AND user_id = $2`,
+    insertNote: `INSERT INTO notes (title, content, user_id, created_at, updated_at)
+        VALUES ($1, $2, $3, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) RETURNING ${NOTE_COLUMNS}`,
+    // Ownership is part of the WHERE clause: no row back means missing or not yours
+    updateNote: `UPDATE notes SET title = $1, content = $2, updated_at = CURRENT_TIMESTAMP
+        WHERE id = $3 AND user_id = $4 RETURNING ${NOTE_COLUMNS}`,
+    deleteNote: 'DELETE FROM notes WHERE id = $1 AND user_id = $2 RETURNING id',
+    // Bumped by a trigger on every write to the user's notes (see database.sql); no row yet
+    // means no write since the table was added
+    notesValidator: `SELECT COALESCE(
+            (SELECT version FROM note_list_versions WHERE user_id = $1), 0)::text AS version`,
+    // Every transaction older than the snapshot's xmin has finished: whatever it wrote is
+    // visible to anything read after this, and all later writes have change_xid >= xmin.
+    // Read before the rows it covers.
+    syncWatermark: 'SELECT pg_snapshot_xmin(pg_current_snapshot())::text AS watermark',
+    notesSince: `SELECT ${NOTE_COLUMNS} FROM notes
+        WHERE user_id = $1 AND change_xid >= $2::xid8
+        ORDER BY updated_at`,
+    tombstonesSince: `SELECT note_id FROM note_tombstones
+        WHERE user_id = $1 AND change_xid >= $2::xid8`,
+    firstPage: `SELECT ${NOTE_COLUMNS}, created_at::text AS page_token FROM notes
+        WHERE user_id = $1
+        ORDER BY created_at DESC, id DESC LIMIT $2`,
+    nextPage: `SELECT ${NOTE_COLUMNS}, created_at::text AS page_token FROM notes
+        WHERE user_id = $1 AND (created_at, id) < ($2::timestamp, $3)
+        ORDER BY created_at DESC, id DESC LIMIT $4`,
+    // $2 is a to_tsquery expression of prefix terms, $3 the raw text for the trigram match.
+    // Full-text hits rank first, typo matches on the title follow by similarity.
+    searchNotes: `SELECT ${NOTE_COLUMNS}, ts_rank(search_vector, q.query) AS rank
+        FROM notes CROSS JOIN (SELECT to_tsquery('french', $2) || to_tsquery('simple', $2) AS query) q
+        WHERE user_id = $1 AND (search_vector @@ q.query OR $3 <% title)
+        ORDER BY rank DESC, word_similarity($3, title) DESC, created_at DESC, id DESC
+        LIMIT $4 OFFSET $5`,
+    userByEmail: 'SELECT * FROM users WHERE email = $1',
+    userById: 'SELECT id FROM users WHERE id = $1',
+    insertUser: 'INSERT INTO users (email, password, name) VALUES ($1, $2, $3) RETURNING id, email, name'
+};
+
+// Runs a statement by name, on the pool or on a client checked out for a transaction
+function run(name, values, client = pool) {
+    const text = statements[name];
+    if (!text) {
+        throw new Error(`Unknown statement ${name}`);
+    }
+    return client.query({ name, text, values });
+}
+
+// Yields all of a user's notes, newest first, in keyset pages of batchSize. Each page is a
+// query of its own on the pool, so a client reading slowly holds no connection between two
+// pages. Pages are not one snapshot: a note written meanwhile may be left out, which the sync
+// watermark read before the listing covers, but none is repeated since created_at never changes.
+async function* notePages(userId, batchSize = 500) {
+    let { rows } = await run('firstPage', [userId, batchSize]);
+    while (rows.length > 0) {
+        const last = rows[rows.length - 1];
+        yield rows.map(({ page_token, ...note }) => note);
+        if (rows.length < batchSize) {
+            break;
+        }
+        ({ rows } = await run('nextPage', [userId, last.page_token, last.id, batchSize]));
+    }
+}
+
+module.exports = {
+    pool,
+    run,
+    notePages,
+    query: (text, values) => pool.query(text, values),
+    connect: () => pool.connect()
+};
@@ -0,0 +1,79 @@
+const zlib = require('zlib');
+
+// Smaller bodies are not worth the CPU and the framing overhead
+const MIN_SIZE = 1024;
+const COMPRESSIBLE = /json|text|javascript/i;
+
+// Compresses JSON and text responses with gzip or brotli, whichever the client prefers.
+// Works for res.json and for responses written in several res.write calls, and passes
+// backpressure through: res.write returns false while the compressor's buffer is full.
+const compression = (req, res, next) => {
+    const encoding = req.acceptsEncodings('gzip', 'br');
+    if (!encoding || encoding === 'identity' || req.method === 'HEAD') {
+        return next();
+    }
+
+    const write = res.write;
+    const end = res.end;
+    let stream = null;
+    let decided = false;
+
+    const decide = (chunk, ending) => {
+        decided = true;
+        res.vary('Accept-Encoding');
+        const type = res.getHeader('Content-Type') || '';
+        const length = ending
+            ? (chunk ? Buffer.byteLength(chunk) : 0)
+            : Number(res.getHeader('Content-Length') || Infinity);
+        if (res.statusCode === 204 || res.statusCode === 304 || res.getHeader('Content-Encoding')
+            || !COMPRESSIBLE.test(type) || length < MIN_SIZE) {
+            return;
+        }
+
+        stream = encoding === 'br'
+            ? zlib.createBrotliCompress({ params: { [zlib.constants.BROTLI_PARAM_QUALITY]: 4 } })
+            : zlib.createGzip({ level: 6 });
+        res.setHeader('Content-Encoding', encoding);
+        res.removeHeader('Content-Length');
+
+        stream.on('data', data => {
+            if (!write.call(res, data)) {
+                stream.pause();
+            }
+        });
+        stream.on('end', () => end.call(res));
+        stream.on('drain', () => res.emit('drain'));
+        res.on('drain', () => stream.resume());
+    };
+
+    res.write = function (chunk, chunkEncoding, callback) {
+        if (!decided) {
+            decide(chunk, false);
+        }
+        return stream
+            ? stream.write(chunk, chunkEncoding, callback)
+            : write.call(res, chunk, chunkEncoding, callback);
+    };
+
+    res.end = function (chunk, chunkEncoding, callback) {
+        if (!decided) {
+            decide(chunk, true);
+        }
+        if (!stream) {
+            return end.call(res, chunk, chunkEncoding, callback);
+        }
+        if (typeof chunk === 'function') {
+            callback = chunk;
+            chunk = undefined;
+        }
+        if (callback) {
+            res.once('finish', callback);
+        }
+        stream.end(chunk, typeof chunkEncoding === 'string' ? chunkEncoding : undefined);
+        return res;
+    };
+
+    next();
+};
+
+module.exports = compression;
@@ -0,0 +1,97 @@
+const os = require('os');
+const path = require('path');
+const { Worker } = require('worker_threads');
+
+// bcrypt costs tens of milliseconds of CPU per call, which would stall every request of the
+// process if it ran on the event loop. Hashes run on a small worker pool instead, and once
+// MAX_QUEUE calls are waiting new ones are refused right away rather than piling up latency.
+const POOL_SIZE = parseInt(process.env.HASH_WORKERS, 10) || Math.max(1, Math.min(4, os.cpus().length - 1));
+const MAX_QUEUE = parseInt(process.env.HASH_QUEUE_SIZE, 10) || 32;
+const SALT_ROUNDS = 10;
+
+class OverloadedError extends Error {
+    constructor() {
+        super('Password hashing queue is full');
+        this.name = 'OverloadedError';
+    }
+}
+
+const idle = [];
+const queue = [];
+const pending = new Map();
+let nextId = 1;
+
+function startWorker() {
+    const worker = new Worker(path.join(__dirname, 'workers', 'bcrypt-worker.js'));
+    worker.on('message', ({ id, result, error }) => {
+        const job = pending.get(id);
+        pending.delete(id);
+        worker.job = null;
+        worker.unref();
+        if (error) {
+            job.reject(new Error(error));
+        } else {
+            job.resolve(result);
+        }
+        release(worker);
+    });
+    worker.on('error', (err) => {
+        console.error('Password worker error:', err);
+    });
+    worker.on('exit', () => {
+        // Fail the job it was running and put a fresh worker in its place
+        const index = idle.indexOf(worker);
+        if (index >= 0) {
+            idle.splice(index, 1);
+        }
+        if (worker.job) {
+            pending.delete(worker.job.id);
+            worker.job.reject(new Error('Password worker exited'));
+        }
+        release(startWorker());
+    });
+    // Only a worker with a job in flight keeps the process alive
+    worker.unref();
+    return worker;
+}
+
+function dispatch(worker, job) {
+    worker.job = job;
+    worker.ref();
+    pending.set(job.id, job);
+    worker.postMessage({ id: job.id, op: job.op, args: job.args });
+}
+
+function release(worker) {
+    const job = queue.shift();
+    if (job) {
+        dispatch(worker, job);
+    } else {
+        idle.push(worker);
+    }
+}
+
+function submit(op, args) {
+    return new Promise((resolve, reject) => {
+        const job = { id: nextId++, op, args, resolve, reject };
+        const worker = idle.pop();
+        if (worker) {
+            dispatch(worker, job);
+        } else if (queue.length < MAX_QUEUE) {
+            queue.push(job);
+        } else {
+            reject(new OverloadedError());
+        }
+    });
+}
+
+for (let i = 0; i < POOL_SIZE; i++) {
+    idle.push(startWorker());
+}
+
+module.exports = {
+    OverloadedError,
+    hash: (password) => submit('hash', [password, SALT_ROUNDS]),
+    compare: (password, hashed) => submit('compare', [password, hashed]),
+    stats: () => ({ workers: POOL_SIZE, idle: idle.length, queued: queue.length })
+};
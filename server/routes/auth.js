@@ -1,37 +1,32 @@
 const express = require('express');
 const router = express.Router();
-const bcrypt = require('bcryptjs');
+const passwords = require('../passwords');
 const jwt = require('jsonwebtoken');
-const { Pool } = require('pg');
-
-const pool = new Pool({
-    user: 'postgres',
-    host: 'localhost',
-    database: 'notes_db',
-    password: '1234', 
-    port: 5432,
-});
+const { run } = require('../db');
+
+// Too many logins at once: ask the client to come back instead of queueing without bound
+function rejectIfOverloaded(error, res) {
+    if (error instanceof passwords.OverloadedError) {
+        res.set('Retry-After', '1');
+        res.status(503).json({ error: 'Server busy, please retry' });
+        return true;
+    }
+    return false;
+}
 
 router.post('/register', async (req, res) => {
     try {
         const { email, password, name } = req.body;
 
-        const userCheck = await pool.query(
-            'SELECT * FROM users WHERE email = $1',
-            [email]
-        );
+        const userCheck = await run('userByEmail', [email]);
 
         if (userCheck.rows.length > 0) {
             return res.status(400).json({ error: 'User already exists' });
         }
 
-        const salt = await bcrypt.genSalt(10);
-        const hashedPassword = await bcrypt.hash(password, salt);
+        const hashedPassword = await passwords.hash(password);
 
-        const result = await pool.query(
-            'INSERT INTO users (email, password, name) VALUES ($1, $2, $3) RETURNING id, email, name',
-            [email, hashedPassword, name]
-        );
+        const result = await run('insertUser', [email, hashedPassword, name]);
 
         const token = jwt.sign(
             { id: result.rows[0].id },
@@ -45,6 +40,9 @@ router.post('/register', async (req, res) => {
             user: result.rows[0]
         });
     } catch (error) {
+        if (rejectIfOverloaded(error, res)) {
+            return;
+        }
         console.error('Registration error:', error);
         res.status(500).json({ error: 'Server error' });
     }
@@ -54,10 +52,7 @@ router.post('/login', async (req, res) => {
     try {
         const { email, password } = req.body;
 
-        const result = await pool.query(
-            'SELECT * FROM users WHERE email = $1',
-            [email]
-        );
+        const result = await run('userByEmail', [email]);
 
         if (result.rows.length === 0) {
             return res.status(400).json({ error: 'Invalid credentials' });
@@ -65,7 +60,7 @@ router.post('/login', async (req, res) => {
 
         const user = result.rows[0];
 
-        const isMatch = await bcrypt.compare(password, user.password);
+        const isMatch = await passwords.compare(password, user.password);
         if (!isMatch) {
             return res.status(400).json({ error: 'Invalid credentials' });
         }
@@ -86,9 +81,54 @@ router.post('/login', async (req, res) => {
             }
         });
     } catch (error) {
+        if (rejectIfOverloaded(error, res)) {
+            return;
+        }
         console.error('Login error:', error);
         res.status(500).json({ error: 'Server error' });
     }
 });
 
+// Tokens that expired less than this long ago can still be exchanged for a new one
+const REFRESH_WINDOW_SECONDS = 7 * 24 * 3600;
+
+// Trades a valid or recently expired token for a new 24h one, so clients do not send
+// the user back to the login screen every day. The signature is always checked.
+router.post('/refresh', async (req, res) => {
+    try {
+        const token = req.header('Authorization')?.replace('Bearer ', '');
+        if (!token) {
+            return res.status(401).json({ error: 'No authentication token' });
+        }
+
+        let decoded;
+        try {
+            decoded = jwt.verify(token, 'your_jwt_secret', { ignoreExpiration: true });
+        } catch (err) {
+            return res.status(401).json({ error: 'Token is not valid' });
+        }
+        if (!decoded.exp || decoded.exp + REFRESH_WINDOW_SECONDS < Date.now() / 1000) {
+            return res.status(401).json({ error: 'Token expired, please log in again' });
+        }
+
+        // The account may have been deleted since the token was issued
+        const result = await run('userById', [decoded.id]);
+        if (result.rows.length === 0) {
+            return res.status(401).json({ error: 'Token is not valid' });
+        }
+
+        const refreshed = jwt.sign(
+            { id: decoded.id },
+            'your_jwt_secret',
+            { expiresIn: '24h' }
+        );
+
+        res.header('Authorization', `Bearer ${refreshed}`);
+        res.json({ message: 'Token refreshed' });
+    } catch (error) {
+        console.error('Refresh error:', error);
+        res.status(500).json({ error: 'Server error' });
+    }
+});
+
 module.exports = router;
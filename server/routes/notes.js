@@ -44,15 +44,6 @@ router.put('/:id', auth, async (req, res) => {
         const { id } = req.params;
         const { title, content, category, priority, due_date } = req.body;
 
-        const noteCheck = await pool.query(
-            'SELECT * FROM notes WHERE id = $1 AND user_id = $2',
-            [id, req.user.id]
-        );
-
-        if (noteCheck.rows.length === 0) {
-            return res.status(404).json({ error: 'Note not found' });
-        }
-
         const { rows } = await pool.query(
             `UPDATE notes 
             SET title = $1, 
@@ -66,6 +57,9 @@ router.put('/:id', auth, async (req, res) => {
             [title, content, category, priority, due_date, id, req.user.id]
         );
 
+        if (rows.length === 0) {
+            return res.status(404).json({ error: 'Note not found' });
+        }
         res.json(rows[0]);
     } catch (err) {
         console.error(err.message);
@@ -77,16 +71,14 @@ router.delete('/:id', auth, async (req, res) => {
     try {
         const { id } = req.params;
 
-        const noteCheck = await pool.query(
-            'SELECT * FROM notes WHERE id = $1 AND user_id = $2',
+        const { rows } = await pool.query(
+            'DELETE FROM notes WHERE id = $1 AND user_id = $2 RETURNING id',
             [id, req.user.id]
         );
 
-        if (noteCheck.rows.length === 0) {
+        if (rows.length === 0) {
             return res.status(404).json({ error: 'Note not found' });
         }
-
-        await pool.query('DELETE FROM notes WHERE id = $1 AND user_id = $2', [id, req.user.id]);
         res.json({ message: 'Note deleted successfully' });
     } catch (err) {
         console.error(err.message);
@@ -0,0 +1,136 @@
+// Closed-loop load test against a running server. Run it before and after a change and
+// compare throughput and latency percentiles.
+//   BASE_URL=http://localhost:3000 DURATION=10 CONCURRENCY=20 SCENARIO=mutations node scripts/load-test.js
+//
+// Scenarios:
+//   mutations  every worker cycles PUT, PUT, DELETE, POST on its own note
+//   reads      every worker alternates GET /api/notes/:id and GET /api/notes?limit=50
+//
+// LOGIN_CONCURRENCY=n adds n workers logging in back to back during the run, to see how
+// password hashing affects the notes endpoints (503s are the hashing queue pushing back).
+const BASE_URL = process.env.BASE_URL || 'http://localhost:3000';
+const DURATION = (parseInt(process.env.DURATION, 10) || 10) * 1000;
+const CONCURRENCY = parseInt(process.env.CONCURRENCY, 10) || 20;
+const SCENARIO = process.env.SCENARIO || 'mutations';
+const EMAIL = process.env.EMAIL || 'loadtest@example.com';
+const PASSWORD = process.env.PASSWORD || 'loadtest-password';
+const LOGIN_CONCURRENCY = parseInt(process.env.LOGIN_CONCURRENCY, 10) || 0;
+
+const latencies = {};
+const errors = {};
+
+async function request(label, method, path, token, body) {
+    const start = process.hrtime.bigint();
+    const response = await fetch(BASE_URL + path, {
+        method,
+        headers: {
+            'Content-Type': 'application/json',
+            ...(token ? { Authorization: `Bearer ${token}` } : {})
+        },
+        body: body ? JSON.stringify(body) : undefined
+    });
+    const text = await response.text();
+    const ms = Number(process.hrtime.bigint() - start) / 1e6;
+    (latencies[label] = latencies[label] || []).push(ms);
+    if (!response.ok) {
+        errors[label] = (errors[label] || 0) + 1;
+    }
+    return { response, json: text ? JSON.parse(text) : null };
+}
+
+async function login() {
+    await request('setup', 'POST', '/auth/register', null, { email: EMAIL, password: PASSWORD, name: 'Load test' });
+    const { response } = await request('setup', 'POST', '/auth/login', null, { email: EMAIL, password: PASSWORD });
+    const header = response.headers.get('authorization');
+    if (!response.ok || !header) {
+        throw new Error(`Login failed with ${response.status}`);
+    }
+    return header.replace('Bearer ', '');
+}
+
+async function createNote(token, worker) {
+    const { json } = await request('POST /api/notes', 'POST', '/api/notes', token,
+        { title: `Load test ${worker}`, content: `Created by worker ${worker}` });
+    return json.id;
+}
+
+const scenarios = {
+    async mutations(token, worker, deadline) {
+        let id = await createNote(token, worker);
+        for (let i = 0; Date.now() < deadline; i++) {
+            const step = i % 4;
+            if (step < 2) {
+                await request('PUT /api/notes/:id', 'PUT', `/api/notes/${id}`, token,
+                    { title: `Load test ${worker}`, content: `Revision ${i}` });
+            } else if (step === 2) {
+                await request('DELETE /api/notes/:id', 'DELETE', `/api/notes/${id}`, token);
+            } else {
+                id = await createNote(token, worker);
+            }
+        }
+        await request('cleanup', 'DELETE', `/api/notes/${id}`, token);
+    },
+
+    async reads(token, worker, deadline) {
+        const id = await createNote(token, worker);
+        for (let i = 0; Date.now() < deadline; i++) {
+            if (i % 2 === 0) {
+                await request('GET /api/notes/:id', 'GET', `/api/notes/${id}`, token);
+            } else {
+                await request('GET /api/notes?limit=50', 'GET', '/api/notes?limit=50', token);
+            }
+        }
+        await request('cleanup', 'DELETE', `/api/notes/${id}`, token);
+    }
+};
+
+async function loginLoop(deadline) {
+    while (Date.now() < deadline) {
+        await request('POST /auth/login', 'POST', '/auth/login', null, { email: EMAIL, password: PASSWORD });
+    }
+}
+
+function percentile(sorted, p) {
+    return sorted[Math.min(sorted.length - 1, Math.ceil(p / 100 * sorted.length) - 1)];
+}
+
+function report(elapsedMs) {
+    console.log(`${SCENARIO}: ${CONCURRENCY} workers and ${LOGIN_CONCURRENCY} login workers for ${(elapsedMs / 1000).toFixed(1)} s against ${BASE_URL}`);
+    console.log('operation                      count    req/s   errors   p50 ms   p99 ms   max ms');
+    for (const label of Object.keys(latencies).filter(l => l !== 'setup' && l !== 'cleanup')) {
+        const sorted = latencies[label].slice().sort((a, b) => a - b);
+        console.log(
+            label.padEnd(28),
+            String(sorted.length).padStart(7),
+            (sorted.length / (elapsedMs / 1000)).toFixed(1).padStart(8),
+            String(errors[label] || 0).padStart(8),
+            percentile(sorted, 50).toFixed(1).padStart(8),
+            percentile(sorted, 99).toFixed(1).padStart(8),
+            sorted[sorted.length - 1].toFixed(1).padStart(8)
+        );
+    }
+}
+
+async function main() {
+    const scenario = scenarios[SCENARIO];
+    if (!scenario) {
+        throw new Error(`Unknown scenario ${SCENARIO}, expected one of ${Object.keys(scenarios).join(', ')}`);
+    }
+    const token = await login();
+    const start = Date.now();
+    const deadline = start + DURATION;
+    const workers = [];
+    for (let worker = 0; worker < CONCURRENCY; worker++) {
+        workers.push(scenario(token, worker, deadline));
+    }
+    for (let worker = 0; worker < LOGIN_CONCURRENCY; worker++) {
+        workers.push(loginLoop(deadline));
+    }
+    await Promise.all(workers);
+    report(Date.now() - start);
+}
+
+main().catch(err => {
+    console.error(err);
+    process.exit(1);
+});
@@ -0,0 +1,89 @@
+// Compares the size on the wire and the decode time of a synthetic note list for each
+// response encoding the server can negotiate.
+//   node scripts/payload-benchmark.js [noteCount] [runs]
+const zlib = require('zlib');
+
+const noteCount = parseInt(process.argv[2], 10) || 5000;
+const runs = parseInt(process.argv[3], 10) || 20;
+
+const WORDS = ('réunion projet budget client livraison équipe planning semaine rappel acheter '
+    + 'meeting project deadline review notes idea draft call follow up travel book').split(' ');
+
+// Deterministic pseudo-random generator so every run measures the same payload
+let seed = 42;
+function random() {
+    seed = (seed * 1103515245 + 12345) & 0x7fffffff;
+    return seed / 0x7fffffff;
+}
+
+function sentence(words) {
+    const parts = [];
+    for (let i = 0; i < words; i++) {
+        parts.push(WORDS[Math.floor(random() * WORDS.length)]);
+    }
+    return parts.join(' ');
+}
+
+function syntheticNotes() {
+    const notes = [];
+    const start = Date.parse('2024-01-01T00:00:00Z');
+    for (let i = 1; i <= noteCount; i++) {
+        const created = new Date(start + i * 3600 * 1000).toISOString();
+        notes.push({
+            id: i,
+            user_id: 1,
+            title: sentence(4),
+            content: sentence(20 + Math.floor(random() * 200)),
+            summary: null,
+            created_at: created,
+            updated_at: created
+        });
+    }
+    return notes;
+}
+
+function median(values) {
+    const sorted = values.slice().sort((a, b) => a - b);
+    return sorted[Math.floor(sorted.length / 2)];
+}
+
+function time(fn) {
+    const samples = [];
+    let result;
+    for (let i = 0; i < runs; i++) {
+        const start = process.hrtime.bigint();
+        result = fn();
+        samples.push(Number(process.hrtime.bigint() - start) / 1e6);
+    }
+    return { result, ms: median(samples) };
+}
+
+const json = Buffer.from(JSON.stringify(syntheticNotes()));
+const encodings = [
+    { name: 'identity', encode: b => b, decode: b => b },
+    { name: 'gzip -6', encode: b => zlib.gzipSync(b, { level: 6 }), decode: b => zlib.gunzipSync(b) },
+    {
+        name: 'br q4',
+        encode: b => zlib.brotliCompressSync(b, { params: { [zlib.constants.BROTLI_PARAM_QUALITY]: 4 } }),
+        decode: b => zlib.brotliDecompressSync(b)
+    },
+    {
+        name: 'br q11',
+        encode: b => zlib.brotliCompressSync(b, { params: { [zlib.constants.BROTLI_PARAM_QUALITY]: 11 } }),
+        decode: b => zlib.brotliDecompressSync(b)
+    }
+];
+
+console.log(`${noteCount} notes, median of ${runs} runs`);
+console.log('encoding    bytes       ratio  encode ms  decode+parse ms');
+for (const { name, encode, decode } of encodings) {
+    const encoded = time(() => encode(json));
+    const decoded = time(() => JSON.parse(decode(encoded.result).toString()));
+    console.log(
+        name.padEnd(10),
+        String(encoded.result.length).padStart(10),
+        (encoded.result.length / json.length).toFixed(3).padStart(7),
+        encoded.ms.toFixed(2).padStart(10),
+        decoded.ms.toFixed(2).padStart(16)
+    );
+}
@@ -2,23 +2,33 @@ require('dotenv').config();
 const express = require('express');
 const cors = require('cors');
 const bodyParser = require('body-parser');
-const { Pool } = require('pg');
+const cluster = require('cluster');
+const crypto = require('crypto');
+const { monitorEventLoopDelay } = require('perf_hooks');
+const { pool, run, notePages } = require('./db');
 const auth = require('./middleware/auth');
+const compression = require('./middleware/compression');
+const passwords = require('./passwords');
 
 const app = express();
 const port = process.env.PORT || 3000;
+const STATS_INTERVAL_MS = 5000;
 
-app.use(cors());
-app.use(bodyParser.json());
-
-const pool = new Pool({
-    host: process.env.DB_HOST,
-    port: process.env.DB_PORT,
-    database: process.env.DB_NAME,
-    user: process.env.DB_USER,
-    password: process.env.DB_PASSWORD
+// Request counters, reported to the primary in clustered mode (see cluster.js)
+const requestStats = { requests: 0, inFlight: 0 };
+app.use((req, res, next) => {
+    requestStats.requests++;
+    requestStats.inFlight++;
+    res.once('close', () => requestStats.inFlight--);
+    next();
 });
 
+app.use(cors());
+app.use(compression);
+// Batches of queued edits can be larger than the 100kb default. Request bodies sent with
+// Content-Encoding: gzip are inflated by body-parser, the limit applies to the inflated size.
+app.use(bodyParser.json({ limit: '2mb' }));
+
 pool.connect((err, client, release) => {
     if (err) {
         console.error('Error connecting to the database:', err);
@@ -32,13 +42,203 @@ app.get('/', (req, res) => {
     res.json({ message: 'Notes API is running' });
 });
 
+const MAX_PAGE_SIZE = 500;
+
+// Page cursors are "<created_at>,<id>" of the last note of the previous page
+function parseCursor(cursor) {
+    const separator = cursor.lastIndexOf(',');
+    if (separator <= 0) {
+        return null;
+    }
+    const id = parseInt(cursor.slice(separator + 1), 10);
+    if (isNaN(id)) {
+        return null;
+    }
+    return { createdAt: cursor.slice(0, separator), id };
+}
+
+// Validator for everything GET /api/notes can return to a user: any insert, update or delete
+// bumps the user's note list version. variant tells apart the different queries (delta, page,
+// full list) so their cached bodies are never mixed up.
+async function notesEtag(userId, variant) {
+    const result = await run('notesValidator', [userId]);
+    const { version } = result.rows[0];
+    const hash = crypto.createHash('sha1')
+        .update(`${userId}|${version}|${variant}`)
+        .digest('base64');
+    return `W/"${hash}"`;
+}
+
+// Clients keep the body but must revalidate it; req.fresh compares If-None-Match with the ETag
+function setValidator(req, res, etag) {
+    res.set({ 'ETag': etag, 'Cache-Control': 'private, no-cache' });
+    return req.fresh;
+}
+
+// Resolves once the response can take more data, or the client has gone
+function writable(res) {
+    return new Promise((resolve) => {
+        const done = () => {
+            res.off('drain', done);
+            res.off('close', done);
+            resolve();
+        };
+        res.on('drain', done);
+        res.on('close', done);
+    });
+}
+
+// Writes row batches as one JSON array while they are read from the database, so memory
+// stays at one batch however many rows there are. Waits for 'drain' when the socket (or the
+// compressor in front of it) is full, and stops reading when the client disconnects.
+async function streamJsonArray(res, batches) {
+    let closed = false;
+    res.on('close', () => {
+        closed = true;
+    });
+    res.type('json');
+
+    let first = true;
+    for await (const rows of batches) {
+        if (closed) {
+            break;
+        }
+        let chunk = '';
+        for (const row of rows) {
+            chunk += (first ? '[' : ',') + JSON.stringify(row);
+            first = false;
+        }
+        if (!res.write(chunk) && !closed) {
+            await writable(res);
+        }
+    }
+    if (!closed) {
+        res.end(first ? '[]' : ']');
+    }
+}
+
+// Watermarks are transaction id bounds (see syncWatermark in db.js), opaque to clients.
+// A delta may repeat notes the client already has, never miss one.
 app.get('/api/notes', auth, async (req, res) => {
     try {
-        const result = await pool.query(
-            'SELECT * FROM notes WHERE user_id = $1 ORDER BY created_at DESC',
-            [req.user.id]
-        );
-        res.json(result.rows);
+        const { since } = req.query;
+
+        // Conditional GET: an unchanged list costs one primary key lookup and an empty 304
+        const etag = await notesEtag(req.user.id, JSON.stringify([since, req.query.before, req.query.limit]));
+
+        if (since) {
+            // Timestamps from older clients are rejected, they then start over with a full list
+            if (!/^\d+$/.test(since)) {
+                return res.status(400).json({ error: 'Invalid since parameter' });
+            }
+            if (setValidator(req, res, etag)) {
+                return res.status(304).end();
+            }
+            // Delta mode: only what changed after the client's high-water mark
+            const next = await run('syncWatermark', []);
+            const notes = await run('notesSince', [req.user.id, since]);
+            const tombstones = await run('tombstonesSince', [req.user.id, since]);
+
+            // Nothing new: keep the client's mark, so its next request can still get a 304
+            const changed = notes.rows.length > 0 || tombstones.rows.length > 0;
+            return res.json({
+                notes: notes.rows,
+                deleted: tombstones.rows.map(row => row.note_id),
+                watermark: changed ? next.rows[0].watermark : since
+            });
+        }
+
+        // Keyset pagination: ?limit=N for the first page, then ?before=<cursor>&limit=N
+        const limit = req.query.limit !== undefined ? parseInt(req.query.limit, 10) : null;
+        if (limit !== null && (isNaN(limit) || limit < 1 || limit > MAX_PAGE_SIZE)) {
+            return res.status(400).json({ error: `limit must be between 1 and ${MAX_PAGE_SIZE}` });
+        }
+        let before = null;
+        if (req.query.before) {
+            before = parseCursor(req.query.before);
+            if (!before) {
+                return res.status(400).json({ error: 'Invalid before parameter' });
+            }
+        }
+
+        // The watermark only matters for a client starting a sync, not for the following pages.
+        // Read it first so anything changed during the listing shows up in the next delta.
+        if (!before) {
+            const watermark = await run('syncWatermark', []);
+            res.header('X-Sync-Watermark', watermark.rows[0].watermark);
+        }
+        // After the watermark so a 304 still refreshes it in the client's cached headers
+        if (setValidator(req, res, etag)) {
+            return res.status(304).end();
+        }
+
+        if (limit === null) {
+            return await streamJsonArray(res, notePages(req.user.id));
+        }
+
+        const result = before
+            ? await run('nextPage', [req.user.id, before.createdAt, before.id, limit])
+            : await run('firstPage', [req.user.id, limit]);
+
+        if (result.rows.length === limit) {
+            const last = result.rows[result.rows.length - 1];
+            res.header('X-Next-Cursor', `${last.page_token},${last.id}`);
+        }
+        res.json(result.rows.map(({ page_token, ...note }) => note));
+    } catch (err) {
+        // Malformed or out of range before timestamp or since transaction id
+        if (err.code === '22007' || err.code === '22008' || err.code === '22003') {
+            return res.status(400).json({ error: 'Invalid since or before parameter' });
+        }
+        console.error(err);
+        // Failed halfway through a streamed list: cut the connection so the truncated
+        // array cannot be mistaken for a complete one
+        if (res.headersSent) {
+            return res.destroy();
+        }
+        res.status(500).json({ error: 'Internal server error' });
+    }
+});
+
+const MAX_SEARCH_PAGE_SIZE = 100;
+const MAX_SEARCH_TERMS = 8;
+
+// "proj réun" -> "proj:* & réun:*": every word must prefix a word of the note, like the
+// on-device search. Only letters and digits are kept, so to_tsquery never sees its operators.
+function toPrefixQuery(text) {
+    const words = (text.match(/[\p{L}\p{N}]+/gu) || []).slice(0, MAX_SEARCH_TERMS);
+    return words.length > 0 ? words.map(word => `${word}:*`).join(' & ') : null;
+}
+
+// Server-side search for accounts too large to have every note on the device.
+// ?q=text&limit=N&offset=M, ranked best first; X-Next-Offset is set while there may be more.
+// Declared before /api/notes/:id so "search" is not taken for an id.
+app.get('/api/notes/search', auth, async (req, res) => {
+    try {
+        const text = (req.query.q || '').trim();
+        const tsquery = toPrefixQuery(text);
+        if (!tsquery) {
+            return res.status(400).json({ error: 'q must contain at least one word' });
+        }
+        const limit = req.query.limit !== undefined ? parseInt(req.query.limit, 10) : 20;
+        if (isNaN(limit) || limit < 1 || limit > MAX_SEARCH_PAGE_SIZE) {
+            return res.status(400).json({ error: `limit must be between 1 and ${MAX_SEARCH_PAGE_SIZE}` });
+        }
+        const offset = req.query.offset !== undefined ? parseInt(req.query.offset, 10) : 0;
+        if (isNaN(offset) || offset < 0) {
+            return res.status(400).json({ error: 'offset must be a positive number' });
+        }
+
+        const etag = await notesEtag(req.user.id, JSON.stringify(['search', text, limit, offset]));
+        if (setValidator(req, res, etag)) {
+            return res.status(304).end();
+        }
+
+        const result = await run('searchNotes', [req.user.id, tsquery, text, limit, offset]);
+        if (result.rows.length === limit) {
+            res.header('X-Next-Offset', String(offset + limit));
+        }
+        res.json(result.rows.map(({ rank, ...note }) => note));
     } catch (err) {
         console.error(err);
         res.status(500).json({ error: 'Internal server error' });
@@ -48,16 +248,17 @@ app.get('/api/notes', auth, async (req, res) => {
 app.get('/api/notes/:id', auth, async (req, res) => {
     try {
         const { id } = req.params;
-        const result = await pool.query(
-            'SELECT * FROM notes WHERE id = $1 AND user_id = $2',
-            [id, req.user.id]
-        );
+        const result = await run('noteById', [id, req.user.id]);
         
         if (result.rows.length === 0) {
             return res.status(404).json({ error: 'Note not found' });
         }
         
-        res.json(result.rows[0]);
+        const { version, ...note } = result.rows[0];
+        if (setValidator(req, res, `W/"${note.id}-${version}"`)) {
+            return res.status(304).end();
+        }
+        res.json(note);
     } catch (err) {
         console.error(err);
         res.status(500).json({ error: 'Internal server error' });
@@ -68,14 +269,12 @@ app.post('/api/notes', auth, async (req, res) => {
     try {
         const { title, content } = req.body;
         
-        if (!title || !content) {
-            return res.status(400).json({ error: 'Title and content are required' });
+        const error = invalidNoteBody(title, content);
+        if (error) {
+            return res.status(400).json({ error });
         }
         
-        const result = await pool.query(
-            'INSERT INTO notes (title, content, user_id, created_at, updated_at) VALUES ($1, $2, $3, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) RETURNING *',
-            [title, content, req.user.id]
-        );
+        const result = await run('insertNote', [title, content, req.user.id]);
         
         res.status(201).json(result.rows[0]);
     } catch (err) {
@@ -84,29 +283,120 @@ app.post('/api/notes', auth, async (req, res) => {
     }
 });
 
+const MAX_BATCH_SIZE = 500;
+// notes.title is VARCHAR(255), counted in characters
+const MAX_TITLE_LENGTH = 255;
+// notes.id is a 4-byte SERIAL
+const MAX_NOTE_ID = 2147483647;
+
+// Whatever PostgreSQL would refuse to store, caught before it fails the statement (and in a
+// batch the whole transaction)
+function invalidNoteBody(title, content) {
+    if (typeof title !== 'string' || typeof content !== 'string' || !title || !content) {
+        return 'Title and content are required';
+    }
+    // Surrogate pairs count as one character for PostgreSQL, two for length
+    if (title.length > MAX_TITLE_LENGTH && Array.from(title).length > MAX_TITLE_LENGTH) {
+        return `Title is longer than ${MAX_TITLE_LENGTH} characters`;
+    }
+    if (title.includes('\u0000') || content.includes('\u0000')) {
+        return 'Title and content cannot contain NUL characters';
+    }
+    return null;
+}
+
+// Malformed operations are answered one by one with status 'invalid' and skipped, so one bad
+// edit in a client's queue does not hold back or take down the others
+function invalidOperation(operation) {
+    if (!operation || typeof operation !== 'object') {
+        return 'Invalid operation';
+    }
+    const needsId = operation.op === 'update' || operation.op === 'delete';
+    const needsBody = operation.op === 'create' || operation.op === 'update';
+    if (!needsId && !needsBody) {
+        return 'Unknown op';
+    }
+    if (needsId && !(Number.isInteger(operation.id) && operation.id > 0 && operation.id <= MAX_NOTE_ID)) {
+        return 'id is required';
+    }
+    return needsBody ? invalidNoteBody(operation.title, operation.content) : null;
+}
+
+// Replays a client's queued edits in one transaction:
+// { operations: [{ op: 'create' | 'update' | 'delete', client_id, id, title, content }] }
+// Each result echoes op and client_id; updates and deletes of notes that no longer exist
+// come back with status 'not_found' and malformed operations with status 'invalid' instead of
+// failing the whole batch.
+app.post('/api/notes/batch', auth, async (req, res) => {
+    const { operations } = req.body;
+    if (!Array.isArray(operations) || operations.length === 0 || operations.length > MAX_BATCH_SIZE) {
+        return res.status(400).json({ error: `operations must be an array of 1 to ${MAX_BATCH_SIZE} items` });
+    }
+
+    let client;
+    try {
+        client = await pool.connect();
+    } catch (err) {
+        console.error(err);
+        return res.status(500).json({ error: 'Internal server error' });
+    }
+    try {
+        await client.query('BEGIN');
+        const results = [];
+        for (const operation of operations) {
+            const error = invalidOperation(operation);
+            if (error) {
+                const { op, client_id } = operation || {};
+                results.push({ op, client_id, status: 'invalid', error });
+                continue;
+            }
+            const { op, client_id, id, title, content } = operation;
+            let result;
+            if (op === 'create') {
+                result = await run('insertNote', [title, content, req.user.id], client);
+            } else if (op === 'update') {
+                result = await run('updateNote', [title, content, id, req.user.id], client);
+            } else {
+                result = await run('deleteNote', [id, req.user.id], client);
+            }
+
+            const note = result.rows[0];
+            results.push({
+                op,
+                client_id,
+                id: note ? note.id : id,
+                status: note ? 'ok' : 'not_found',
+                note: op === 'delete' ? undefined : note
+            });
+        }
+        await client.query('COMMIT');
+        res.json({ results });
+    } catch (err) {
+        await client.query('ROLLBACK').catch(() => {});
+        console.error(err);
+        res.status(500).json({ error: 'Internal server error' });
+    } finally {
+        client.release();
+    }
+});
+
 app.put('/api/notes/:id', auth, async (req, res) => {
     try {
         const { id } = req.params;
         const { title, content } = req.body;
         
-        if (!title || !content) {
-            return res.status(400).json({ error: 'Title and content are required' });
+        const error = invalidNoteBody(title, content);
+        if (error) {
+            return res.status(400).json({ error });
         }
         
-        const noteCheck = await pool.query(
-            'SELECT * FROM notes WHERE id = $1 AND user_id = $2',
-            [id, req.user.id]
-        );
+        // One round trip: a note that is missing or belongs to someone else updates no row
+        const result = await run('updateNote', [title, content, id, req.user.id]);
 
-        if (noteCheck.rows.length === 0) {
+        if (result.rows.length === 0) {
             return res.status(404).json({ error: 'Note not found' });
         }
         
-        const result = await pool.query(
-            'UPDATE notes SET title = $1, content = $2, updated_at = CURRENT_TIMESTAMP WHERE id = $3 AND user_id = $4 RETURNING *',
-            [title, content, id, req.user.id]
-        );
-        
         res.json(result.rows[0]);
     } catch (err) {
         console.error(err);
@@ -118,16 +408,12 @@ app.delete('/api/notes/:id', auth, async (req, res) => {
     try {
         const { id } = req.params;
         
-        const noteCheck = await pool.query(
-            'SELECT * FROM notes WHERE id = $1 AND user_id = $2',
-            [id, req.user.id]
-        );
+        const result = await run('deleteNote', [id, req.user.id]);
 
-        if (noteCheck.rows.length === 0) {
+        if (result.rows.length === 0) {
             return res.status(404).json({ error: 'Note not found' });
         }
         
-        await pool.query('DELETE FROM notes WHERE id = $1 AND user_id = $2', [id, req.user.id]);
         res.status(204).send();
     } catch (err) {
         console.error(err);
@@ -142,3 +428,27 @@ app.listen(port, '0.0.0.0', () => {
     console.log(`Server running on port ${port}`);
     console.log(`Test the API at: http://localhost:${port}/api/notes`);
 });
+
+if (cluster.isWorker) {
+    const loopDelay = monitorEventLoopDelay();
+    loopDelay.enable();
+    setInterval(() => {
+        process.send({
+            type: 'stats',
+            stats: {
+                ...requestStats,
+                eventLoopDelayP99Ms: loopDelay.percentile(99) / 1e6,
+                rssBytes: process.memoryUsage().rss,
+                db: { total: pool.totalCount, idle: pool.idleCount, waiting: pool.waitingCount },
+                hashing: passwords.stats()
+            }
+        });
+        loopDelay.reset();
+    }, STATS_INTERVAL_MS).unref();
+
+    // The primary disconnects a worker to stop it: the listener is closed at that point and
+    // in-flight requests have finished, so the idle database connections can go too
+    process.on('disconnect', () => {
+        pool.end().catch(err => console.error('Error closing the database pool:', err));
+    });
+}
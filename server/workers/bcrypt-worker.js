@@ -0,0 +1,19 @@
+// Runs bcrypt off the main thread. Blocking calls are fine here: this thread does nothing else.
+const { parentPort } = require('worker_threads');
+const bcrypt = require('bcryptjs');
+
+parentPort.on('message', ({ id, op, args }) => {
+    try {
+        let result;
+        if (op === 'hash') {
+            result = bcrypt.hashSync(args[0], args[1]);
+        } else if (op === 'compare') {
+            result = bcrypt.compareSync(args[0], args[1]);
+        } else {
+            throw new Error(`Unknown operation ${op}`);
+        }
+        parentPort.postMessage({ id, result });
+    } catch (err) {
+        parentPort.postMessage({ id, error: err.message });
+    }
+});